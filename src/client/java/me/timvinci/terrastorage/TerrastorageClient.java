@@ -1,16 +1,22 @@
 package me.timvinci.terrastorage;
 
 import me.timvinci.terrastorage.command.TerrastorageClientCommands;
+import me.timvinci.terrastorage.config.BaseConfigManager;
 import me.timvinci.terrastorage.config.ClientConfigManager;
 import me.timvinci.terrastorage.keybinding.TerrastorageKeybindings;
+import me.timvinci.terrastorage.network.ClientNetworkHandler;
 import me.timvinci.terrastorage.network.ClientReceiverRegistry;
 import me.timvinci.terrastorage.render.BlockEntityRendererManager;
+import me.timvinci.terrastorage.render.StorageHighlightRenderer;
 import me.timvinci.terrastorage.util.LocalizedTextProvider;
 import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.StorageAction;
 
 import net.fabricmc.api.ClientModInitializer;
 
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientLifecycleEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderEvents;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.resource.ResourceManager;
@@ -37,6 +43,26 @@ public class TerrastorageClient implements ClientModInitializer {
 		TerrastorageKeybindings.registerKeybindings();
 		
 		ClientLifecycleEvents.CLIENT_STARTED.register(client -> BlockEntityRendererManager.registerLootableRenderers());
+		// Write any config change that is still waiting on the background config writer before the game exits.
+		ClientLifecycleEvents.CLIENT_STOPPING.register(client -> {
+			ClientConfigManager.getInstance().flushPendingSave();
+			BaseConfigManager.shutdownConfigWriter();
+		});
+		// Outside of screens, the highlight storages keybind searches for the held item. See HandledScreenMixin for
+		// the hovered item, and for restocking from nearby storages while a screen is open.
+		ClientTickEvents.END_CLIENT_TICK.register(client -> {
+			while (TerrastorageKeybindings.highlightStoragesBind.wasPressed()) {
+				if (client.player != null && !client.player.getMainHandStack().isEmpty()) {
+					ClientNetworkHandler.sendHighlightStoragesPayload(client.player.getMainHandStack());
+				}
+			}
+			while (TerrastorageKeybindings.restockFromNearbyBind.wasPressed()) {
+				if (client.player != null) {
+					ClientNetworkHandler.sendActionPayload(StorageAction.RESTOCK_FROM_NEARBY);
+				}
+			}
+		});
+		WorldRenderEvents.AFTER_ENTITIES.register(StorageHighlightRenderer::render);
 		ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
 			@Override
 			public Identifier getFabricId() {
@@ -1,9 +1,11 @@
 package me.timvinci.terrastorage.command;
 
 import me.timvinci.terrastorage.gui.TerrastorageOptionsScreen;
+import me.timvinci.terrastorage.network.ClientNetworkHandler;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
 import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.command.argument.ItemStackArgumentType;
 
 /**
  * Provides a method for registering client commands.
@@ -11,7 +13,7 @@ import net.minecraft.client.MinecraftClient;
 public class TerrastorageClientCommands {
 
     /**
-     * Registers the client command for opening the options screen.
+     * Registers the client commands for opening the options screen and for searching nearby storages for an item.
      */
     public static void registerCommands() {
         ClientCommandRegistrationCallback.EVENT.register((dispatcher, registryAccess) -> {
@@ -25,6 +27,14 @@ public class TerrastorageClientCommands {
                         return 1;
                     })
                 )
+                .then(ClientCommandManager.literal("find")
+                    .then(ClientCommandManager.argument("item", ItemStackArgumentType.itemStack(registryAccess))
+                        .executes(context -> {
+                            ClientNetworkHandler.sendFindStoragesPayload(ItemStackArgumentType.getItemStackArgument(context, "item").getItem());
+                            return 1;
+                        })
+                    )
+                )
             );
         });
     }
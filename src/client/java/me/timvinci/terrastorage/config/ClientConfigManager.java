@@ -9,9 +9,6 @@ import net.minecraft.client.gui.widget.ClickableWidget;
 import net.minecraft.text.Text;
 import net.minecraft.util.Pair;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,61 +46,48 @@ public class ClientConfigManager extends BaseConfigManager<TerrastorageClientCon
         List<Boolean> singleOptionOrder = new ArrayList<>();
         int i = 0;
 
-        for (Field field : config.getClass().getDeclaredFields()) {
-            if (!field.isAnnotationPresent(ConfigProperty.class) || field.isAnnotationPresent(SubProperty.class)) {
+        for (ConfigPropertyDescriptor property : properties) {
+            if (property.hasAnnotation(SubProperty.class)) {
                 continue;
             }
 
-
-            if (field.trySetAccessible()) {
-                ConfigProperty property = field.getAnnotation(ConfigProperty.class);
-                String propertyKey = property.key();
-                boolean singleOption = field.isAnnotationPresent(SingleOption.class);
-
-                Object fieldValue = getFieldValue(field, config, propertyKey);
-                if (fieldValue != null) {
-                    ButtonWidget optionButton = null;
-                    int finalI = i;
-
-                    if (fieldValue.getClass().equals(Boolean.class)) {
-                        optionButton = ButtonWidget.builder(
-                                LocalizedTextProvider.getBooleanOptionText(propertyKey, (Boolean) fieldValue),
-                                onPress -> {
-                                    boolean currentValue = (Boolean) getFieldValue(field, config, propertyKey);
-                                    currentValue = !currentValue;
-                                    setFieldValue(field, currentValue, propertyKey);
-                                    options.get(finalI).setMessage(LocalizedTextProvider.getBooleanOptionText(propertyKey, currentValue));
-                                }
-                        ).build();
-                    } else if (fieldValue.getClass().isEnum()) {
-                        optionButton = ButtonWidget.builder(
-                                LocalizedTextProvider.getEnumOptionText(propertyKey, (Enum) fieldValue),
-                                onPress -> {
-                                    Enum<?> currentValue = (Enum<?>) getFieldValue(field, config, propertyKey);
-                                    try {
-                                        // Get the next method of the enum class.
-                                        Method nextMethod = currentValue.getClass().getMethod("next", currentValue.getClass());
-                                        // Use the next method to iterate over the enum constants.
-                                        currentValue = (Enum) nextMethod.invoke(currentValue.getClass(), currentValue);
-                                        setFieldValue(field, currentValue, propertyKey);
-                                        options.get(finalI).setMessage(LocalizedTextProvider.getEnumOptionText(propertyKey, (Enum) currentValue));
-                                    } catch (NoSuchMethodException | InvocationTargetException |
-                                             IllegalAccessException e) {
-                                        logger.error("Failed to find or invoke the next method for the '{}' enum class.", currentValue.getClass().getName(), e);
-                                    }
-                                }
-                        ).build();
-                    }
-
-                    if (optionButton != null) {
-                        optionButton.setTooltip(Tooltip.of(Text.translatable("terrastorage.option.tooltip." + propertyKey)));
-                        options.add(i, optionButton);
-                        singleOptionOrder.add(i++, singleOption);
-                    }
+            String propertyKey = property.key();
+            boolean singleOption = property.hasAnnotation(SingleOption.class);
+
+            Object fieldValue = property.get(config);
+            ButtonWidget optionButton = null;
+            int finalI = i;
+
+            if (fieldValue instanceof Boolean booleanValue) {
+                optionButton = ButtonWidget.builder(
+                        LocalizedTextProvider.getBooleanOptionText(propertyKey, booleanValue),
+                        onPress -> {
+                            boolean currentValue = !(Boolean) property.get(config);
+                            property.set(config, currentValue);
+                            options.get(finalI).setMessage(LocalizedTextProvider.getBooleanOptionText(propertyKey, currentValue));
+                        }
+                ).build();
+            } else if (fieldValue instanceof Enum<?> enumValue) {
+                if (!property.hasNext()) {
+                    logger.error("Failed to find the next method for the '{}' enum class.", enumValue.getDeclaringClass().getName());
+                    continue;
                 }
+
+                optionButton = ButtonWidget.builder(
+                        LocalizedTextProvider.getEnumOptionText(propertyKey, (Enum) enumValue),
+                        onPress -> {
+                            // Use the next method of the enum class to iterate over the enum constants.
+                            Enum<?> currentValue = (Enum<?>) property.next(property.get(config));
+                            property.set(config, currentValue);
+                            options.get(finalI).setMessage(LocalizedTextProvider.getEnumOptionText(propertyKey, (Enum) currentValue));
+                        }
+                ).build();
             }
-            else {
-                logger.error("Failed to set field '{}' as accessible.", field.getName());
+
+            if (optionButton != null) {
+                optionButton.setTooltip(Tooltip.of(Text.translatable("terrastorage.option.tooltip." + propertyKey)));
+                options.add(i, optionButton);
+                singleOptionOrder.add(i++, singleOption);
             }
         }
 
@@ -11,6 +11,9 @@ import org.lwjgl.glfw.GLFW;
 public class TerrastorageKeybindings {
     public static KeyBinding favoriteItemModifier;
     public static KeyBinding sortInventoryBind;
+    public static KeyBinding restockQuickStackSortBind;
+    public static KeyBinding highlightStoragesBind;
+    public static KeyBinding restockFromNearbyBind;
 
     public static void registerKeybindings() {
         favoriteItemModifier = new KeyBinding(
@@ -30,5 +33,32 @@ public class TerrastorageKeybindings {
         );
 
         KeyBindingHelper.registerKeyBinding(sortInventoryBind);
+
+        restockQuickStackSortBind = new KeyBinding(
+                "terrastorage.keybinding.restock_quick_stack_sort_bind",
+                InputUtil.Type.KEYSYM,
+                GLFW.GLFW_KEY_UNKNOWN,
+                "terrastorage.keybinding.categories.main"
+        );
+
+        KeyBindingHelper.registerKeyBinding(restockQuickStackSortBind);
+
+        highlightStoragesBind = new KeyBinding(
+                "terrastorage.keybinding.highlight_storages_bind",
+                InputUtil.Type.KEYSYM,
+                GLFW.GLFW_KEY_UNKNOWN,
+                "terrastorage.keybinding.categories.main"
+        );
+
+        KeyBindingHelper.registerKeyBinding(highlightStoragesBind);
+
+        restockFromNearbyBind = new KeyBinding(
+                "terrastorage.keybinding.restock_from_nearby_bind",
+                InputUtil.Type.KEYSYM,
+                GLFW.GLFW_KEY_UNKNOWN,
+                "terrastorage.keybinding.categories.main"
+        );
+
+        KeyBindingHelper.registerKeyBinding(restockFromNearbyBind);
     }
 }
@@ -38,6 +38,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
+import java.util.List;
+
 /**
  * A mixin of the HandledScreen class, adds the storage option buttons to storage screens, and provides item favoriting
  * support.
@@ -55,6 +57,8 @@ public abstract class HandledScreenMixin<T extends ScreenHandler> extends Screen
     @Shadow protected int y;
     @Shadow @Nullable
     protected Slot focusedSlot;
+    @Unique
+    private boolean storageScreen = false;
 
     protected HandledScreenMixin(Text title) {
         super(title);
@@ -94,6 +98,8 @@ public abstract class HandledScreenMixin<T extends ScreenHandler> extends Screen
             return;
         }
 
+        storageScreen = true;
+
         // Add the options buttons if it is enabled.
         if (ClientConfigManager.getInstance().getConfig().getDisplayOptionsButton()) {
             int optionsButtonX = (this.width - 120) / 2;
@@ -220,11 +226,28 @@ public abstract class HandledScreenMixin<T extends ScreenHandler> extends Screen
     }
 
     /**
-     * Provides the ability to sort inventories through the sort inventory keybind.
+     * Provides the ability to sort inventories through the sort inventory keybind, to restock, quick stack and sort
+     * the open storage in a single action through its keybind, to restock from nearby storages, and to highlight the
+     * nearby storages holding the hovered item.
      * Injected at TAIL to allow any other logic related to the same keybind to happen before the sorting.
      */
     @Inject(method = "keyPressed", at = @At("TAIL"))
     private void onKeyPressed(int keyCode, int scanCode, int modifiers, CallbackInfoReturnable<Boolean> cir) {
+        if (storageScreen && TerrastorageKeybindings.restockQuickStackSortBind.matchesKey(keyCode, scanCode)) {
+            ClientNetworkHandler.sendActionSequencePayload(List.of(StorageAction.RESTOCK, StorageAction.QUICK_STACK, StorageAction.SORT_ITEMS));
+            return;
+        }
+
+        if (TerrastorageKeybindings.restockFromNearbyBind.matchesKey(keyCode, scanCode)) {
+            ClientNetworkHandler.sendActionPayload(StorageAction.RESTOCK_FROM_NEARBY);
+            return;
+        }
+
+        if (focusedSlot != null && focusedSlot.hasStack() && TerrastorageKeybindings.highlightStoragesBind.matchesKey(keyCode, scanCode)) {
+            ClientNetworkHandler.sendHighlightStoragesPayload(focusedSlot.getStack());
+            return;
+        }
+
         if (focusedSlot == null || focusedSlot.inventory.size() < 27) {
             return;
         }
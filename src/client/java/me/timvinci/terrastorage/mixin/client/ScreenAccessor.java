@@ -0,0 +1,18 @@
+package me.timvinci.terrastorage.mixin.client;
+
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.text.Text;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/**
+ * A mixin accessor for the Screen class.
+ */
+@Mixin(Screen.class)
+public interface ScreenAccessor {
+
+    @Mutable
+    @Accessor("title")
+    void setTitle(Text title);
+}
@@ -8,9 +8,12 @@ import me.timvinci.terrastorage.util.QuickStackMode;
 import me.timvinci.terrastorage.util.StorageAction;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.world.World;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,7 +26,7 @@ public class ClientNetworkHandler {
 
     public static void sendActionPayload(StorageAction action) {
         if (!canSendPayload(StorageActionPayload.ID) ||
-            action != StorageAction.QUICK_STACK_TO_NEARBY && MinecraftClient.getInstance().player.currentScreenHandler == null) {
+            !action.targetsNearbyStorages() && MinecraftClient.getInstance().player.currentScreenHandler == null) {
             return;
         }
 
@@ -41,6 +44,12 @@ public class ClientNetworkHandler {
                         ClientConfigManager.getInstance().getConfig().getHotbarProtection(),
                         Optional.of(ClientConfigManager.getInstance().getConfig().getNearbyQuickStackMode() == QuickStackMode.SMART_DEPOSIT)
                 );
+                case RESTOCK_FROM_NEARBY -> new StorageActionPayload(
+                        Optional.empty(),
+                        action,
+                        ClientConfigManager.getInstance().getConfig().getHotbarProtection(),
+                        Optional.empty()
+                );
                 default -> new StorageActionPayload(
                         Optional.of(getSyncId()),
                         action,
@@ -56,6 +65,29 @@ public class ClientNetworkHandler {
         }
     }
 
+    /**
+     * Sends a sequence of storage actions that the server carries out on the open storage as a single operation.
+     * @param actions The actions, in order.
+     */
+    public static void sendActionSequencePayload(List<StorageAction> actions) {
+        if (!canSendPayload(StorageActionSequencePayload.ID) || MinecraftClient.getInstance().player.currentScreenHandler == null) {
+            return;
+        }
+
+        if (canPerformAction()) {
+            ClientPlayNetworking.send(new StorageActionSequencePayload(
+                    getSyncId(),
+                    actions,
+                    ClientConfigManager.getInstance().getConfig().getSortType(),
+                    ClientConfigManager.getInstance().getConfig().getHotbarProtection(),
+                    ClientConfigManager.getInstance().getConfig().getStorageQuickStackMode() == QuickStackMode.SMART_DEPOSIT
+            ));
+        }
+        else {
+            LocalizedTextProvider.sendCooldownMessage();
+        }
+    }
+
     public static void sendSortPayload(boolean playerInventory) {
         if (!canSendPayload(SortPayload.ID) ||
             !playerInventory && MinecraftClient.getInstance().player.currentScreenHandler == null) {
@@ -108,6 +140,41 @@ public class ClientNetworkHandler {
         return false;
     }
 
+    /**
+     * Asks the server which storages around the player hold an item, answered by a FoundStoragesPayload.
+     * @param item The item searched for.
+     */
+    public static void sendFindStoragesPayload(Item item) {
+        if (!canSendPayload(FindStoragesPayload.ID)) {
+            return;
+        }
+
+        if (canPerformAction()) {
+            ClientPlayNetworking.send(new FindStoragesPayload(item));
+        }
+        else {
+            LocalizedTextProvider.sendCooldownMessage();
+        }
+    }
+
+    /**
+     * Asks the server which storages within the quick stack range hold a stack, answered by a
+     * HighlightedStoragesPayload.
+     * @param stack The stack searched for.
+     */
+    public static void sendHighlightStoragesPayload(ItemStack stack) {
+        if (!canSendPayload(HighlightStoragesPayload.ID)) {
+            return;
+        }
+
+        if (canPerformAction()) {
+            ClientPlayNetworking.send(new HighlightStoragesPayload(stack.copy()));
+        }
+        else {
+            LocalizedTextProvider.sendCooldownMessage();
+        }
+    }
+
     private static boolean canSendPayload(CustomPayload.Id<?> type) {
         if (!ClientPlayNetworking.canSend(type)) {
             LocalizedTextProvider.sendUnsupportedMessage();
@@ -2,8 +2,16 @@ package me.timvinci.terrastorage.network;
 
 import me.timvinci.terrastorage.config.ServerConfigHolder;
 import me.timvinci.terrastorage.network.s2c.BlockRenamedPayload;
+import me.timvinci.terrastorage.network.s2c.FoundStoragesPayload;
+import me.timvinci.terrastorage.network.s2c.HighlightedStoragesPayload;
+import me.timvinci.terrastorage.mixin.client.ScreenAccessor;
+import me.timvinci.terrastorage.network.s2c.ScreenTitlePayload;
 import me.timvinci.terrastorage.network.s2c.ServerConfigPayload;
+import me.timvinci.terrastorage.render.StorageHighlightRenderer;
+import me.timvinci.terrastorage.util.LocalizedTextProvider;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.gui.screen.ingame.HandledScreen;
+import net.minecraft.text.Text;
 
 /**
  * Provides a method for registering client global receivers.
@@ -21,5 +29,26 @@ public class ClientReceiverRegistry {
         ClientPlayNetworking.registerGlobalReceiver(ServerConfigPayload.ID, (payload, context) -> {
             ServerConfigHolder.apply(payload);
         });
+
+        ClientPlayNetworking.registerGlobalReceiver(ScreenTitlePayload.ID, (payload, context) -> {
+            // Only update the title if the screen the payload refers to is still open.
+            if (context.client().currentScreen instanceof HandledScreen<?> handledScreen &&
+                handledScreen.getScreenHandler().syncId == payload.syncId()) {
+                ((ScreenAccessor) handledScreen).setTitle(payload.title());
+            }
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(FoundStoragesPayload.ID, (payload, context) -> {
+            LocalizedTextProvider.sendFoundStoragesMessage(payload.item(), payload.matches());
+        });
+
+        ClientPlayNetworking.registerGlobalReceiver(HighlightedStoragesPayload.ID, (payload, context) -> {
+            if (payload.positions().isEmpty()) {
+                context.player().sendMessage(Text.translatable("terrastorage.message.no_storages_highlighted"), true);
+                return;
+            }
+
+            StorageHighlightRenderer.highlight(context.player().getWorld(), payload.positions());
+        });
     }
 }
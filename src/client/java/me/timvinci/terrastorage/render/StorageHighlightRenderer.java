@@ -0,0 +1,67 @@
+package me.timvinci.terrastorage.render;
+
+import net.fabricmc.fabric.api.client.rendering.v1.WorldRenderContext;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.VertexConsumerProvider;
+import net.minecraft.client.render.VertexRendering;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.World;
+
+import java.util.List;
+
+/**
+ * Outlines the storages sent by the server in a HighlightedStoragesPayload for a few seconds.
+ */
+public class StorageHighlightRenderer {
+    private static final int HIGHLIGHT_TICKS = 100;
+    private static List<BlockPos> highlightedPositions = List.of();
+    private static World highlightWorld = null;
+    private static long highlightEndTime = 0;
+
+    /**
+     * Replaces the outlined storages.
+     * @param world The world of the storages.
+     * @param positions The positions of the storages.
+     */
+    public static void highlight(World world, List<BlockPos> positions) {
+        highlightedPositions = positions;
+        highlightWorld = world;
+        highlightEndTime = world.getTime() + HIGHLIGHT_TICKS;
+    }
+
+    /**
+     * Draws the outlines of the highlighted storages, until the highlight expires or the player changes worlds.
+     * @param context The world render context.
+     */
+    public static void render(WorldRenderContext context) {
+        if (highlightedPositions.isEmpty()) {
+            return;
+        }
+
+        if (context.world() != highlightWorld || context.world().getTime() >= highlightEndTime) {
+            highlightedPositions = List.of();
+            highlightWorld = null;
+            return;
+        }
+
+        VertexConsumerProvider consumers = context.consumers();
+        MatrixStack matrices = context.matrixStack();
+        if (consumers == null || matrices == null) {
+            return;
+        }
+
+        Vec3d cameraPos = context.camera().getPos();
+        VertexConsumer lines = consumers.getBuffer(RenderLayer.getLines());
+        matrices.push();
+        matrices.translate(-cameraPos.x, -cameraPos.y, -cameraPos.z);
+        for (BlockPos pos : highlightedPositions) {
+            // Slightly larger than the block, so the outline isn't hidden by the block's own faces.
+            VertexRendering.drawBox(matrices, lines, new Box(pos).expand(0.002), 1.0f, 0.8f, 0.2f, 1.0f);
+        }
+        matrices.pop();
+    }
+}
@@ -1,11 +1,15 @@
 package me.timvinci.terrastorage.util;
 
+import me.timvinci.terrastorage.catalog.StorageMatch;
 import me.timvinci.terrastorage.config.ClientConfigManager;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.tooltip.Tooltip;
+import net.minecraft.item.Item;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -17,7 +21,7 @@ public class LocalizedTextProvider {
     public static final Map<StorageAction, Tooltip> buttonTooltipCache = new EnumMap<>(StorageAction.class);
 
     public static void initializeButtonCaches() {
-        for (StorageAction action : StorageAction.values()) {
+        for (StorageAction action : StorageAction.getButtonsActions(false)) {
             buttonTextCache.put(action, Text.translatable("terrastorage.button." + action.name().toLowerCase(Locale.ENGLISH)));
 
             if (action == StorageAction.QUICK_STACK) {
@@ -66,4 +70,22 @@ public class LocalizedTextProvider {
     public static void sendCooldownMessage() {
         MinecraftClient.getInstance().player.sendMessage(Text.translatable("terrastorage.message.payload_cooldown"), false);
     }
+
+    /**
+     * Sends the results of a storage search to the player's chat.
+     * @param item The item searched for.
+     * @param matches The storages holding the item, nearest first.
+     */
+    public static void sendFoundStoragesMessage(Item item, List<StorageMatch> matches) {
+        if (matches.isEmpty()) {
+            MinecraftClient.getInstance().player.sendMessage(Text.translatable("terrastorage.message.no_storages_found", item.getName()), false);
+            return;
+        }
+
+        MutableText message = Text.translatable("terrastorage.message.found_storages", item.getName());
+        for (StorageMatch match : matches) {
+            message.append("\n").append(Text.translatable("terrastorage.message.found_storage", match.pos().toShortString(), match.count()));
+        }
+        MinecraftClient.getInstance().player.sendMessage(message, false);
+    }
 }
@@ -0,0 +1,111 @@
+package me.timvinci.terrastorage.gametest;
+
+import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.inventory.InventoryOracle;
+import me.timvinci.terrastorage.util.SortType;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runs the transfer and sort algorithms of InventoryUtils against the reference implementations over randomized
+ * inventories, failing on the first difference.
+ * The inventories are generated from fixed seeds, so a failure can be reproduced by its seed.
+ */
+public class InventoryOracleGameTest {
+    private static final int ROUNDS = 200;
+    private static final int[] SIZES = { 5, 9, 27, 54 };
+    private static final Item[] STACKABLE_ITEMS = {
+            Items.COBBLESTONE, Items.DIRT, Items.OAK_LOG, Items.IRON_INGOT, Items.REDSTONE, Items.BONE,
+            Items.ENDER_PEARL, Items.SNOWBALL, Items.EGG
+    };
+    private static final Item[] UNSTACKABLE_ITEMS = {
+            Items.DIAMOND_SWORD, Items.IRON_PICKAXE, Items.BOW, Items.WATER_BUCKET
+    };
+
+    @GameTest
+    public void sortMatchesReference(TestContext context) {
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Random random = new Random(seed);
+            SimpleInventory inventory = createInventory(random, SIZES[random.nextInt(SIZES.length)]);
+            int startIndex = random.nextInt(3) == 0 ? random.nextInt(inventory.size()) : 0;
+            boolean ignoreFavorites = random.nextBoolean();
+
+            for (SortType type : SortType.values()) {
+                String difference = InventoryOracle.compareSort(inventory, type, startIndex, inventory.size(), ignoreFavorites);
+                context.assertTrue(difference == null, Text.literal("Seed " + seed + ": " + difference));
+            }
+        }
+
+        context.complete();
+    }
+
+    @GameTest
+    public void transferMatchesReference(TestContext context) {
+        for (int seed = 0; seed < ROUNDS; seed++) {
+            Random random = new Random(seed);
+            SimpleInventory receiver = createInventory(random, SIZES[random.nextInt(SIZES.length)]);
+            List<ItemStack> stacks = new ArrayList<>();
+            int stackCount = 1 + random.nextInt(36);
+            while (stacks.size() < stackCount) {
+                ItemStack stack = createStack(random);
+                if (!stack.isEmpty()) {
+                    stacks.add(stack);
+                }
+            }
+
+            String difference = InventoryOracle.compareTransfer(receiver, stacks);
+            context.assertTrue(difference == null, Text.literal("Seed " + seed + ": " + difference));
+        }
+
+        context.complete();
+    }
+
+    private static SimpleInventory createInventory(Random random, int size) {
+        SimpleInventory inventory = new SimpleInventory(size);
+        for (int i = 0; i < size; i++) {
+            inventory.setStack(i, createStack(random));
+        }
+
+        return inventory;
+    }
+
+    /**
+     * Creates a random stack, biased towards few distinct items so that stacks merge often.
+     */
+    private static ItemStack createStack(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 25) {
+            return ItemStack.EMPTY;
+        }
+
+        ItemStack stack;
+        if (roll < 85) {
+            Item item = STACKABLE_ITEMS[random.nextInt(STACKABLE_ITEMS.length)];
+            // Full stacks take a separate path in both algorithms, so they are generated more often than by chance.
+            int count = random.nextInt(4) == 0 ? item.getMaxCount() : 1 + random.nextInt(item.getMaxCount());
+            stack = new ItemStack(item, count);
+            if (random.nextInt(8) == 0) {
+                stack.set(DataComponentTypes.CUSTOM_NAME, Text.literal("Renamed " + random.nextInt(2)));
+            }
+        }
+        else {
+            stack = new ItemStack(UNSTACKABLE_ITEMS[random.nextInt(UNSTACKABLE_ITEMS.length)]);
+        }
+
+        if (random.nextInt(10) == 0) {
+            ItemFavoritingUtils.setFavorite(stack, true);
+        }
+
+        return stack;
+    }
+}
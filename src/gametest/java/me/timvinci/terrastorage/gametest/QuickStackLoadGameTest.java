@@ -0,0 +1,310 @@
+package me.timvinci.terrastorage.gametest;
+
+import com.mojang.authlib.GameProfile;
+import me.timvinci.terrastorage.Terrastorage;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.config.TerrastorageConfig;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.util.ScanShape;
+import me.timvinci.terrastorage.util.TerrastorageCore;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gametest.v1.GameTest;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.ChestBlock;
+import net.minecraft.block.enums.ChestType;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.vehicle.ChestMinecartEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.network.packet.c2s.common.SyncedClientOptions;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.TestContext;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A load suite for Quick Stack To Nearby Storages.
+ * Each test builds a synthetic storage hall of single chests, double chests, barrels, Expanded Storage chests and
+ * chest minecarts that fills the quick stack range, runs TerrastorageCore.quickStackToNearbyStorages once, and
+ * appends the measurements to a CSV file in the game directory, so runs can be compared for regressions.
+ * The quick stack runs two ticks after the hall is built, and the duration of the tick it ran in is recorded next to the
+ * duration of the tick before it. Tests of the same batch run in the same ticks, so tick times are best compared
+ * between runs of the whole suite.
+ * The config properties the suite depends on are pinned through a snapshot override, so the config file is never
+ * written by a test run.
+ */
+public class QuickStackLoadGameTest {
+    private static final Path RESULTS_FILE = FabricLoader.getInstance().getGameDir()
+            .resolve("terrastorage-load")
+            .resolve("quick_stack_to_nearby.csv");
+    private static final String RESULTS_HEADER = "timestamp,range,line_of_sight_check,storages_placed,positions_scanned,storages_found,items_moved,discovery_ms,quick_stack_ms,previous_tick_ms,quick_stack_tick_ms";
+    // The halls are built far away from the regular test grid, so the larger ranges don't overlap other tests.
+    private static final int HALL_ORIGIN = 100_000;
+    private static final int HALL_SPACING = 256;
+    private static final int HALL_Y = 100;
+    private static final int GRID_STEP = 3;
+    private static final Item[] STACK_ITEMS = {
+            Items.COBBLESTONE, Items.DIRT, Items.OAK_LOG, Items.IRON_INGOT, Items.REDSTONE, Items.BONE,
+            Items.ARROW, Items.WHEAT_SEEDS, Items.GLASS, Items.TORCH, Items.ROTTEN_FLESH, Items.STRING
+    };
+    private static final Identifier EXPANDED_STORAGE_CHEST = Identifier.of("expandedstorage", "wood_chest");
+    // The ticks waited after building the hall before quick stacking, so building isn't part of the previous tick.
+    private static final int QUICK_STACK_DELAY = 2;
+
+    // The start of the current server tick, and the duration of the last completed one. Only accessed from the server
+    // thread.
+    private static long tickStartNanos;
+    private static long lastTickNanos;
+
+    static {
+        ServerTickEvents.START_SERVER_TICK.register(server -> tickStartNanos = System.nanoTime());
+        ServerTickEvents.END_SERVER_TICK.register(server -> lastTickNanos = System.nanoTime() - tickStartNanos);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range8WithLineOfSight(TestContext context) {
+        runScenario(context, 0, 8, true);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range8WithoutLineOfSight(TestContext context) {
+        runScenario(context, 1, 8, false);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range16WithLineOfSight(TestContext context) {
+        runScenario(context, 2, 16, true);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range16WithoutLineOfSight(TestContext context) {
+        runScenario(context, 3, 16, false);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range48WithLineOfSight(TestContext context) {
+        runScenario(context, 4, 48, true);
+    }
+
+    @GameTest(maxTicks = 200)
+    public void range48WithoutLineOfSight(TestContext context) {
+        runScenario(context, 5, 48, false);
+    }
+
+    /**
+     * Builds a storage hall, quick stacks a full player inventory into it, and records the results.
+     * @param context The test context.
+     * @param hallIndex The index of the hall, used to keep the halls of different tests apart.
+     * @param range The quick stack range.
+     * @param lineOfSightCheck Whether the line of sight check is enabled.
+     */
+    private void runScenario(TestContext context, int hallIndex, int range, boolean lineOfSightCheck) {
+        ServerWorld world = context.getWorld();
+        BlockPos center = new BlockPos(HALL_ORIGIN + hallIndex * HALL_SPACING, HALL_Y, HALL_ORIGIN);
+        Random random = new Random(range);
+        // The hall's chunks are kept loaded until the test ends, so they aren't unloaded during the quick stack delay
+        // and loaded again within the measured section.
+        setHallChunksForced(world, center, range, true);
+        int storagesPlaced = buildHall(world, center, range, random);
+
+        ServerPlayerEntity player = new ServerPlayerEntity(world.getServer(), world,
+                new GameProfile(UUID.randomUUID(), "terrastorage_load"), SyncedClientOptions.createDefault());
+        player.refreshPositionAndAngles(center.getX() + 0.5, center.getY() + 1, center.getZ() + 0.5, 0.0f, 0.0f);
+        PlayerInventory playerInventory = player.getInventory();
+        for (int i = 0; i < playerInventory.getMainStacks().size(); i++) {
+            Item item = STACK_ITEMS[random.nextInt(STACK_ITEMS.length)];
+            playerInventory.setStack(i, new ItemStack(item, item.getMaxCount()));
+        }
+        int itemsBefore = countItems(playerInventory);
+
+        context.waitAndRun(QUICK_STACK_DELAY, () -> {
+            try {
+                quickStackAndRecord(context, world, center, range, lineOfSightCheck, storagesPlaced, player, itemsBefore);
+            } catch (RuntimeException e) {
+                setHallChunksForced(world, center, range, false);
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Quick stacks the player's inventory into the hall, and records the results on the following tick.
+     */
+    private void quickStackAndRecord(TestContext context, ServerWorld world, BlockPos center, int range, boolean lineOfSightCheck,
+                                     int storagesPlaced, ServerPlayerEntity player, int itemsBefore) {
+        PlayerInventory playerInventory = player.getInventory();
+        long previousTickNanos = lastTickNanos;
+        // Defaults are used for every other property, so results don't depend on the local config. The shape is
+        // pinned to a cube, which the scanned positions count relies on.
+        TerrastorageConfig override = new TerrastorageConfig();
+        override.setQuickStackRange(range);
+        override.setQuickStackShape(ScanShape.CUBE);
+        override.setLineOfSightCheck(lineOfSightCheck);
+        // The fly out animation only adds entities, and would skew the measured time.
+        override.setItemAnimationLength(0);
+        ConfigManager.overrideSnapshot(override.snapshot());
+
+        long discoveryNanos;
+        long quickStackNanos;
+        int storagesFound;
+        try {
+            long start = System.nanoTime();
+            storagesFound = InventoryUtils.getNearbyStorages(player).size();
+            discoveryNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            TerrastorageCore.quickStackToNearbyStorages(player, false, true);
+            quickStackNanos = System.nanoTime() - start;
+        }
+        finally {
+            ConfigManager.clearSnapshotOverride();
+        }
+
+        int itemsMoved = itemsBefore - countItems(playerInventory);
+        int positionsScanned = (2 * range + 1) * (2 * range + 1) * (2 * range + 1);
+        // The tick the quick stack ran in is complete by the next one.
+        context.waitAndRun(1, () -> {
+            setHallChunksForced(world, center, range, false);
+            recordResult(String.format(Locale.ROOT, "%s,%d,%b,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f",
+                    Instant.now(), range, lineOfSightCheck, storagesPlaced, positionsScanned, storagesFound, itemsMoved,
+                    discoveryNanos / 1_000_000.0, quickStackNanos / 1_000_000.0,
+                    previousTickNanos / 1_000_000.0, lastTickNanos / 1_000_000.0));
+
+            context.assertTrue(storagesFound > 0, Text.literal("No nearby storages were found."));
+            context.assertTrue(itemsMoved > 0, Text.literal("No items were quick stacked."));
+            context.complete();
+        });
+    }
+
+    /**
+     * Forces or releases the loading of the chunks a hall is built in.
+     * @param world The world of the hall.
+     * @param center The center of the hall.
+     * @param range The quick stack range the hall fills.
+     * @param forced Whether the chunks are forced to stay loaded.
+     */
+    private static void setHallChunksForced(ServerWorld world, BlockPos center, int range, boolean forced) {
+        // Double chests extend a block past the range.
+        int minChunkX = (center.getX() - range - 1) >> 4;
+        int maxChunkX = (center.getX() + range + 1) >> 4;
+        int minChunkZ = (center.getZ() - range - 1) >> 4;
+        int maxChunkZ = (center.getZ() + range + 1) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                world.setChunkForced(chunkX, chunkZ, forced);
+            }
+        }
+    }
+
+    /**
+     * Fills the quick stack range around the center with two layers of storages, one below the player's feet level
+     * and one above their eyes.
+     * @param world The world to build in.
+     * @param center The position the player will stand on.
+     * @param range The quick stack range.
+     * @param random The random used for the storage contents.
+     * @return The amount of storages placed, counting double chests once.
+     */
+    private static int buildHall(ServerWorld world, BlockPos center, int range, Random random) {
+        Optional<Block> expandedStorageChest = Registries.BLOCK.getOptionalValue(EXPANDED_STORAGE_CHEST);
+        int storagesPlaced = 0;
+
+        for (int dy : new int[] { 0, 4 }) {
+            for (int dx = -range; dx < range; dx += GRID_STEP) {
+                for (int dz = -range; dz <= range; dz += GRID_STEP) {
+                    // Keep the player's own column free.
+                    if (Math.abs(dx) < GRID_STEP && Math.abs(dz) < GRID_STEP) {
+                        continue;
+                    }
+
+                    BlockPos pos = center.add(dx, dy, dz);
+                    int kind = Math.floorMod(dx / GRID_STEP + dz / GRID_STEP, 5);
+                    switch (kind) {
+                        case 0 -> placeStorage(world, pos, Blocks.CHEST.getDefaultState(), random);
+                        case 1 -> {
+                            BlockState chest = Blocks.CHEST.getDefaultState().with(ChestBlock.FACING, Direction.NORTH);
+                            placeStorage(world, pos, chest.with(ChestBlock.CHEST_TYPE, ChestType.LEFT), random);
+                            placeStorage(world, pos.east(), chest.with(ChestBlock.CHEST_TYPE, ChestType.RIGHT), random);
+                        }
+                        case 2 -> placeStorage(world, pos, Blocks.BARREL.getDefaultState(), random);
+                        case 3 -> placeStorage(world, pos,
+                                expandedStorageChest.orElse(Blocks.CHEST).getDefaultState(), random);
+                        default -> {
+                            ChestMinecartEntity minecart = new ChestMinecartEntity(EntityType.CHEST_MINECART, world);
+                            minecart.setPosition(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5);
+                            minecart.setNoGravity(true);
+                            fillStorage(minecart, random);
+                            world.spawnEntity(minecart);
+                        }
+                    }
+                    storagesPlaced++;
+                }
+            }
+        }
+
+        return storagesPlaced;
+    }
+
+    private static void placeStorage(ServerWorld world, BlockPos pos, BlockState state, Random random) {
+        world.setBlockState(pos, state, Block.NOTIFY_LISTENERS);
+        if (world.getBlockEntity(pos) instanceof Inventory inventory) {
+            fillStorage(inventory, random);
+        }
+    }
+
+    /**
+     * Fills about a third of a storage with partial stacks, leaving the rest empty for smart deposit.
+     */
+    private static void fillStorage(Inventory inventory, Random random) {
+        for (int i = 0; i < inventory.size(); i++) {
+            if (random.nextInt(3) != 0) {
+                continue;
+            }
+
+            Item item = STACK_ITEMS[random.nextInt(STACK_ITEMS.length)];
+            inventory.setStack(i, new ItemStack(item, 1 + random.nextInt(item.getMaxCount() - 1)));
+        }
+    }
+
+    private static int countItems(PlayerInventory playerInventory) {
+        int count = 0;
+        for (int i = 0; i < playerInventory.getMainStacks().size(); i++) {
+            count += playerInventory.getStack(i).getCount();
+        }
+
+        return count;
+    }
+
+    private static void recordResult(String line) {
+        Terrastorage.LOGGER.info("Quick stack load result: {}", line);
+        try {
+            Files.createDirectories(RESULTS_FILE.getParent());
+            if (Files.notExists(RESULTS_FILE)) {
+                Files.writeString(RESULTS_FILE, RESULTS_HEADER + System.lineSeparator());
+            }
+            Files.writeString(RESULTS_FILE, line + System.lineSeparator(), StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Terrastorage.LOGGER.error("Failed to record the quick stack load result to '{}'.", RESULTS_FILE, e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.trace.ActionTraceReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays every operation of a recorded action trace, measuring the time it takes to perform all of them.
+ * The trace is recorded on a server with "/terrastorage trace start", and passed to the benchmark with
+ * -PjmhArgs="ActionTraceReplayBenchmark -p trace=path/to/file.trace".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionTraceReplayBenchmark {
+    @Param("")
+    private String trace;
+
+    private List<ActionTraceReplayer> replayers;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        if (trace.isEmpty()) {
+            throw new IllegalStateException("No trace file was given, pass one with -p trace=<path>.");
+        }
+
+        BenchmarkInventories.init();
+        List<ActionTrace> traces = ActionTraceReader.read(Path.of(trace), BenchmarkInventories.getRegistries());
+        replayers = new ArrayList<>(traces.size());
+        for (ActionTrace actionTrace : traces) {
+            replayers.add(new ActionTraceReplayer(actionTrace));
+        }
+    }
+
+    // Every replay mutates the inventories, so they are restored to the recorded snapshots before every invocation.
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        for (ActionTraceReplayer replayer : replayers) {
+            replayer.reset();
+        }
+    }
+
+    @Benchmark
+    public void replay() {
+        for (ActionTraceReplayer replayer : replayers) {
+            replayer.replay();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.inventory.CompactInventoryState;
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.util.StorageAction;
+import me.timvinci.terrastorage.util.TerrastorageCore;
+import net.minecraft.entity.EntityEquipment;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.slot.Slot;
+import net.minecraft.util.Pair;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays recorded action traces against fresh copies of their inventory snapshots, outside a live server.
+ */
+public class ActionTraceReplayer {
+    private final ActionTrace trace;
+    private final PlayerInventory playerInventory;
+    private final List<SimpleInventory> storages;
+
+    /**
+     * Creates a replayer holding its own inventories, sized like the recorded ones.
+     * @param trace The trace to replay.
+     */
+    public ActionTraceReplayer(ActionTrace trace) {
+        this.trace = trace;
+        // The player inventory is only used as a container of stacks, so it doesn't need a player.
+        this.playerInventory = new PlayerInventory(null, new EntityEquipment());
+        this.storages = new ArrayList<>(trace.storages().size());
+        for (List<ItemStack> stacks : trace.storages()) {
+            storages.add(new SimpleInventory(stacks.size()));
+        }
+    }
+
+    /**
+     * Restores the inventories to the recorded snapshots.
+     */
+    public void reset() {
+        for (int i = 0; i < trace.playerStacks().size(); i++) {
+            playerInventory.setStack(i, trace.playerStacks().get(i).copy());
+        }
+
+        for (int i = 0; i < storages.size(); i++) {
+            List<ItemStack> stacks = trace.storages().get(i);
+            SimpleInventory storage = storages.get(i);
+            for (int slot = 0; slot < stacks.size(); slot++) {
+                storage.setStack(slot, stacks.get(slot).copy());
+            }
+        }
+    }
+
+    /**
+     * Performs the recorded operation on the inventories through TerrastorageCore.
+     * Deposits use a plain slot of the storage as the first slot, so items that the original screen handler refused,
+     * like shulker boxes into a shulker box, are deposited when replayed.
+     */
+    public void replay() {
+        switch (trace.action()) {
+            case ActionTrace.SORT_PLAYER_INVENTORY -> TerrastorageCore.sortPlayerItems(playerInventory, trace.sortType(), trace.hotbarProtection());
+            case ActionTrace.ACTION_SEQUENCE -> TerrastorageCore.performActionSequence(playerInventory, storages.getFirst(),
+                    new Slot(storages.getFirst(), 0, 0, 0), trace.actions(), trace.sortType(), trace.hotbarProtection(), trace.smartDepositMode());
+            default -> replayStorageAction(StorageAction.valueOf(trace.action()));
+        }
+    }
+
+    private void replayStorageAction(StorageAction action) {
+        switch (action) {
+            case LOOT_ALL -> TerrastorageCore.lootAll(playerInventory, storages.getFirst(), trace.hotbarProtection());
+            case DEPOSIT_ALL -> TerrastorageCore.depositAll(playerInventory, storages.getFirst(), new Slot(storages.getFirst(), 0, 0, 0), trace.hotbarProtection());
+            case QUICK_STACK -> TerrastorageCore.quickStack(playerInventory, storages.getFirst(), trace.hotbarProtection(), trace.smartDepositMode());
+            case RESTOCK -> TerrastorageCore.restock(playerInventory, storages.getFirst(), trace.hotbarProtection());
+            case SORT_ITEMS -> TerrastorageCore.sortStorageItems(storages.getFirst(), trace.sortType());
+            case QUICK_STACK_TO_NEARBY -> {
+                List<Pair<Inventory, Vec3d>> storagePairs = new ArrayList<>(storages.size());
+                for (int i = 0; i < storages.size(); i++) {
+                    storagePairs.add(new Pair<>(storages.get(i), new Vec3d(i, 0, 0)));
+                }
+                TerrastorageCore.quickStackToStorages(playerInventory, storagePairs, trace.hotbarProtection(), trace.smartDepositMode());
+            }
+            case RESTOCK_FROM_NEARBY -> TerrastorageCore.restockFromStorages(playerInventory, storages,
+                    new CompactInventoryState(playerInventory, trace.hotbarProtection()));
+            default -> throw new IllegalArgumentException("Unsupported storage action in trace: " + action);
+        }
+    }
+}
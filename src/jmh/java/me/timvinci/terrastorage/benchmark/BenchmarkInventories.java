@@ -0,0 +1,184 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.item.ItemGroupCache;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.component.type.ContainerComponent;
+import net.minecraft.component.type.LoreComponent;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.enchantment.Enchantments;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemGroups;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.BuiltinRegistries;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.registry.entry.RegistryEntry;
+import net.minecraft.resource.featuretoggle.FeatureFlags;
+import net.minecraft.text.Text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds the synthetic inventories used by the benchmarks.
+ * The contents are generated from a fixed seed, so every run measures the same inventories.
+ */
+public class BenchmarkInventories {
+    private static final Item[] STACKABLE_ITEMS = {
+            Items.COBBLESTONE, Items.DIRT, Items.OAK_LOG, Items.OAK_PLANKS, Items.IRON_INGOT, Items.GOLD_INGOT,
+            Items.REDSTONE, Items.BONE, Items.ARROW, Items.WHEAT_SEEDS, Items.GLASS, Items.TORCH,
+            Items.ENDER_PEARL, Items.SNOWBALL, Items.EGG, Items.ROTTEN_FLESH, Items.STRING, Items.GUNPOWDER
+    };
+    private static final Item[] GEAR_ITEMS = {
+            Items.DIAMOND_SWORD, Items.IRON_PICKAXE, Items.DIAMOND_CHESTPLATE, Items.BOW, Items.NETHERITE_AXE
+    };
+    private static final List<RegistryKey<Enchantment>> ENCHANTMENTS = List.of(
+            Enchantments.SHARPNESS, Enchantments.UNBREAKING, Enchantments.MENDING,
+            Enchantments.EFFICIENCY, Enchantments.PROTECTION, Enchantments.POWER
+    );
+    private static boolean initialized = false;
+    private static RegistryWrapper.WrapperLookup registries;
+    private static RegistryWrapper.Impl<Enchantment> enchantmentLookup;
+
+    /**
+     * Bootstraps the vanilla registries and populates the item group cache, mirroring what the mod does once a
+     * server has started.
+     */
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+
+        registries = BuiltinRegistries.createWrapperLookup();
+        enchantmentLookup = registries.getOrThrow(RegistryKeys.ENCHANTMENT);
+        ItemGroups.updateDisplayContext(FeatureFlags.DEFAULT_ENABLED_FEATURES, false, registries);
+        ItemGroupCache.init();
+
+        initialized = true;
+    }
+
+    /**
+     * Gets the built-in registries, available once init was called.
+     * @return The registries.
+     */
+    public static RegistryWrapper.WrapperLookup getRegistries() {
+        return registries;
+    }
+
+    /**
+     * Creates a storage inventory filled with a realistic mix of partial stacks, full stacks, enchanted gear and
+     * filled shulker boxes, with roughly a fifth of the slots left empty.
+     * @param size The size of the inventory.
+     * @param seed The seed of the contents.
+     * @return The filled inventory.
+     */
+    public static SimpleInventory createStorage(int size, long seed) {
+        Random random = new Random(seed);
+        SimpleInventory inventory = new SimpleInventory(size);
+        for (int i = 0; i < size; i++) {
+            inventory.setStack(i, createStack(random));
+        }
+
+        return inventory;
+    }
+
+    /**
+     * Creates a list of stacks to transfer into a storage, sized like a player's main inventory.
+     * @param count The amount of stacks.
+     * @param seed The seed of the contents.
+     * @return The non-empty stacks.
+     */
+    public static List<ItemStack> createTransferStacks(int count, long seed) {
+        Random random = new Random(seed);
+        List<ItemStack> stacks = new ArrayList<>(count);
+        while (stacks.size() < count) {
+            ItemStack stack = createStack(random);
+            if (!stack.isEmpty()) {
+                stacks.add(stack);
+            }
+        }
+
+        return stacks;
+    }
+
+    /**
+     * Copies the contents of one inventory into another of the same size.
+     * @param source The inventory to copy from.
+     * @param target The inventory to copy to.
+     */
+    public static void copyInto(SimpleInventory source, SimpleInventory target) {
+        for (int i = 0; i < source.size(); i++) {
+            target.setStack(i, source.getStack(i).copy());
+        }
+    }
+
+    /**
+     * Creates a diamond sword carrying the heaviest component data found in regular play.
+     * @return The stack.
+     */
+    public static ItemStack createHeavyStack() {
+        ItemStack stack = new ItemStack(Items.DIAMOND_SWORD);
+        for (RegistryKey<Enchantment> enchantment : ENCHANTMENTS) {
+            stack.addEnchantment(enchantmentLookup.getOrThrow(enchantment), 3);
+        }
+        stack.set(DataComponentTypes.CUSTOM_NAME, Text.literal("Heavy Sword"));
+        stack.set(DataComponentTypes.LORE, new LoreComponent(List.of(
+                Text.literal("First line of lore"),
+                Text.literal("Second line of lore"),
+                Text.literal("Third line of lore")
+        )));
+        stack.setDamage(120);
+        return stack;
+    }
+
+    /**
+     * Creates a shulker box filled with every stackable item used by the benchmarks.
+     * @return The stack.
+     */
+    public static ItemStack createFilledShulkerBox() {
+        List<ItemStack> contents = new ArrayList<>(STACKABLE_ITEMS.length);
+        for (Item item : STACKABLE_ITEMS) {
+            contents.add(new ItemStack(item, item.getMaxCount()));
+        }
+
+        ItemStack stack = new ItemStack(Items.SHULKER_BOX);
+        stack.set(DataComponentTypes.CONTAINER, ContainerComponent.fromStacks(contents));
+        return stack;
+    }
+
+    private static ItemStack createStack(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 20) {
+            return ItemStack.EMPTY;
+        }
+        if (roll < 88) {
+            Item item = STACKABLE_ITEMS[random.nextInt(STACKABLE_ITEMS.length)];
+            ItemStack stack = new ItemStack(item, 1 + random.nextInt(item.getMaxCount()));
+            // Renamed stacks don't merge with plain ones, which is what splits the non-full slot lists in practice.
+            if (random.nextInt(10) == 0) {
+                stack.set(DataComponentTypes.CUSTOM_NAME, Text.literal("Renamed " + random.nextInt(3)));
+            }
+            return stack;
+        }
+        if (roll < 97) {
+            ItemStack stack = new ItemStack(GEAR_ITEMS[random.nextInt(GEAR_ITEMS.length)]);
+            int enchantmentCount = 1 + random.nextInt(3);
+            for (int i = 0; i < enchantmentCount; i++) {
+                RegistryEntry<Enchantment> enchantment = enchantmentLookup.getOrThrow(ENCHANTMENTS.get(random.nextInt(ENCHANTMENTS.size())));
+                stack.addEnchantment(enchantment, 1 + random.nextInt(3));
+            }
+            return stack;
+        }
+
+        return createFilledShulkerBox();
+    }
+}
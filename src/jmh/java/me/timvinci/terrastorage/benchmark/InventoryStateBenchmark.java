@@ -0,0 +1,47 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.inventory.CompactInventoryState;
+import me.timvinci.terrastorage.inventory.CompleteInventoryState;
+import me.timvinci.terrastorage.inventory.ExpandedInventoryState;
+import me.timvinci.terrastorage.inventory.InventoryState;
+import net.minecraft.inventory.SimpleInventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of the three inventory states over a storage inventory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryStateBenchmark {
+    @Param({"27", "54", "270"})
+    private int size;
+
+    private SimpleInventory inventory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkInventories.init();
+        inventory = BenchmarkInventories.createStorage(size, 1L);
+    }
+
+    @Benchmark
+    public InventoryState compactState() {
+        return new CompactInventoryState(inventory);
+    }
+
+    @Benchmark
+    public InventoryState completeState() {
+        return new CompleteInventoryState(inventory);
+    }
+
+    @Benchmark
+    public InventoryState expandedState() {
+        return new ExpandedInventoryState(inventory);
+    }
+}
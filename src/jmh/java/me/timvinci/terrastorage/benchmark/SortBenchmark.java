@@ -0,0 +1,57 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.util.SortType;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures InventoryUtils.combineAndSortInventory for every sort type.
+ * Sorting empties the inventory, so every invocation sorts a fresh inventory from a pool that is filled before each
+ * iteration, and the score is the time it takes to sort the whole pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = SortBenchmark.POOL_SIZE)
+@Measurement(iterations = 10, batchSize = SortBenchmark.POOL_SIZE)
+@Fork(1)
+public class SortBenchmark {
+    // The amount of inventories sorted per iteration.
+    static final int POOL_SIZE = 256;
+
+    @Param({"27", "54", "270"})
+    private int size;
+    @Param
+    private SortType sortType;
+
+    private SimpleInventory template;
+    private final SimpleInventory[] pool = new SimpleInventory[POOL_SIZE];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchmarkInventories.init();
+        template = BenchmarkInventories.createStorage(size, 1L);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            pool[i] = new SimpleInventory(size);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        for (SimpleInventory inventory : pool) {
+            BenchmarkInventories.copyInto(template, inventory);
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public List<ItemStack> combineAndSort() {
+        return InventoryUtils.combineAndSortInventory(pool[next++], sortType, 0, size, false);
+    }
+}
@@ -0,0 +1,53 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.item.StackIdentifier;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction, hashing and equality checks of stack identifiers carrying heavy component data.
+ * Each comparison is made between two distinct but equal stacks, as is the case with real inventories.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackIdentifierBenchmark {
+    @Param({"enchanted_gear", "filled_shulker_box"})
+    private String stackType;
+
+    private ItemStack stack;
+    private StackIdentifier identifier;
+    private StackIdentifier equalIdentifier;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkInventories.init();
+        stack = switch (stackType) {
+            case "enchanted_gear" -> BenchmarkInventories.createHeavyStack();
+            case "filled_shulker_box" -> BenchmarkInventories.createFilledShulkerBox();
+            default -> throw new IllegalArgumentException("Unknown stack type: " + stackType);
+        };
+        identifier = new StackIdentifier(stack);
+        equalIdentifier = new StackIdentifier(stack.copy());
+    }
+
+    @Benchmark
+    public StackIdentifier create() {
+        return new StackIdentifier(stack);
+    }
+
+    @Benchmark
+    public int hash() {
+        return identifier.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return identifier.equals(equalIdentifier);
+    }
+}
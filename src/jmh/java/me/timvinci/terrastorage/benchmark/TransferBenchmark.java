@@ -0,0 +1,89 @@
+package me.timvinci.terrastorage.benchmark;
+
+import me.timvinci.terrastorage.inventory.CompactInventoryState;
+import me.timvinci.terrastorage.inventory.CompleteInventoryState;
+import me.timvinci.terrastorage.inventory.InventoryState;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.item.StackIdentifier;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transferring a player's worth of stacks into a storage, both through InventoryUtils.transferStack and
+ * through InventoryUtils.transferToExistingStack alone.
+ * Transfers mutate both sides, so every invocation uses a fresh receiver, stacks and states from a pool that is filled
+ * before each iteration, and the score is the time it takes to go through the whole pool. Building the states is
+ * measured separately by InventoryStateBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = TransferBenchmark.POOL_SIZE)
+@Measurement(iterations = 10, batchSize = TransferBenchmark.POOL_SIZE)
+@Fork(1)
+public class TransferBenchmark {
+    // The amount of transfers performed per iteration.
+    static final int POOL_SIZE = 256;
+    // The size of the player's main inventory.
+    private static final int TRANSFER_STACK_COUNT = 36;
+
+    @Param({"27", "54", "270"})
+    private int size;
+
+    private SimpleInventory template;
+    private List<ItemStack> transferTemplate;
+    private final Sample[] pool = new Sample[POOL_SIZE];
+    private int next;
+
+    /**
+     * The inventories and states used by a single invocation.
+     */
+    private record Sample(SimpleInventory receiver, List<ItemStack> transferStacks, InventoryState completeState, InventoryState compactState) { }
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        BenchmarkInventories.init();
+        template = BenchmarkInventories.createStorage(size, 1L);
+        transferTemplate = BenchmarkInventories.createTransferStacks(TRANSFER_STACK_COUNT, 2L);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            SimpleInventory receiver = new SimpleInventory(size);
+            BenchmarkInventories.copyInto(template, receiver);
+            List<ItemStack> transferStacks = new ArrayList<>(TRANSFER_STACK_COUNT);
+            for (ItemStack stack : transferTemplate) {
+                transferStacks.add(stack.copy());
+            }
+            pool[i] = new Sample(receiver, transferStacks, new CompleteInventoryState(receiver), new CompactInventoryState(receiver));
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    public void transferStack(Blackhole blackhole) {
+        Sample sample = pool[next++];
+        for (ItemStack stack : sample.transferStacks()) {
+            InventoryUtils.transferStack(sample.receiver(), sample.completeState(), stack);
+        }
+        blackhole.consume(sample.completeState().wasModified());
+    }
+
+    @Benchmark
+    public void transferToExistingStack(Blackhole blackhole) {
+        Sample sample = pool[next++];
+        InventoryState compactState = sample.compactState();
+        for (ItemStack stack : sample.transferStacks()) {
+            if (compactState.getNonFullItemSlots().containsKey(new StackIdentifier(stack))) {
+                blackhole.consume(InventoryUtils.transferToExistingStack(sample.receiver(), compactState, stack));
+            }
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package me.timvinci.terrastorage;
 
+import me.timvinci.terrastorage.catalog.StorageCatalog;
 import me.timvinci.terrastorage.command.TerrastorageCommands;
+import me.timvinci.terrastorage.config.BaseConfigManager;
 import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.inventory.DirtyStorageQueue;
+import me.timvinci.terrastorage.inventory.InventoryStateBuilder;
 import me.timvinci.terrastorage.inventory.InventoryUtils;
 import me.timvinci.terrastorage.network.NetworkHandler;
 import me.timvinci.terrastorage.network.PayloadRegistry;
 import me.timvinci.terrastorage.item.ItemGroupCache;
 import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
 import me.timvinci.terrastorage.util.Reference;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.ModInitializer;
 
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.item.ItemGroups;
@@ -49,6 +56,7 @@ public class Terrastorage implements ModInitializer {
 			ItemFavoritingUtils.initializeComponentType();
 			itemFavoritingEnabled = true;
 		}
+		ConfigManager.updateRemoveFavoritesOnDrop();
 
 		ServerLifecycleEvents.SERVER_STARTED.register((listener) -> {
 			if (populatedItemGroups) {
@@ -62,8 +70,26 @@ public class Terrastorage implements ModInitializer {
 			populatedItemGroups = true;
 		});
 
+		// Write any config change that is still waiting on the background config writer.
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			ConfigManager.getInstance().flushPendingSave();
+			BaseConfigManager.shutdownConfigWriter();
+		});
+		// Close an action trace that is still being recorded, so it isn't left truncated.
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> ActionTraceRecorder.stop());
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> InventoryStateBuilder.shutdown());
+		// Mark the storages modified during the tick dirty once each, see DirtyStorageQueue.
+		ServerTickEvents.END_SERVER_TICK.register(server -> DirtyStorageQueue.flush());
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> DirtyStorageQueue.flush());
+		// Re-index the storages changed during the tick, after the queued storages were marked dirty.
+		ServerTickEvents.END_SERVER_TICK.register(server -> StorageCatalog.flush());
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> StorageCatalog.flush());
+		// Index the storages that aren't in the catalog yet once they're loaded, while the catalog is kept up to date.
+		ServerBlockEntityEvents.BLOCK_ENTITY_LOAD.register(StorageCatalog::onBlockEntityLoad);
+
 		ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
 			NetworkHandler.sendServerConfigPayload(handler.player);
 		});
+		ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> StorageCatalog.forgetPlayer(handler.player));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,639 @@
+package me.timvinci.terrastorage.catalog;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongConsumer;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.config.TerrastorageConfig;
+import me.timvinci.terrastorage.inventory.GroupInventory;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.mixin.DoubleInventoryAccessor;
+import me.timvinci.terrastorage.mixin.LockableContainerBlockEntityAccessor;
+import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.ScanShape;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.ChestBlock;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.enums.ChestType;
+import net.minecraft.block.entity.LockableContainerBlockEntity;
+import net.minecraft.inventory.ContainerLock;
+import net.minecraft.inventory.DoubleInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.Uuids;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.PersistentState;
+import net.minecraft.world.PersistentStateType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A per world catalog of the storage blocks, holding the total count of each item in every indexed storage.
+ * Storages are indexed once they are loaded if they aren't in the catalog yet, and are re-indexed at the end of the tick
+ * in which they were marked dirty, so the catalog can answer which storages hold an item without loading their chunks
+ * or opening them. Storages are also indexed by chunk, so a search only goes through the chunks around its center.
+ * The catalog also records the owner of each grouped storage, the player who gave it its group name, so a storage group
+ * only spans the storages its owner named.
+ * The catalog is only kept up to date while the storage catalog or storage groups config properties are enabled.
+ * Saved with the world, as part of its persistent states.
+ */
+public class StorageCatalog extends PersistentState {
+    // The distance searched around the issuer of the find command, and the maximum amount of storages returned by a
+    // search. Players search within their quick stack volume instead.
+    public static final int FIND_RADIUS = 64;
+    public static final int FIND_LIMIT = 16;
+    // The maximum amount of storages highlighted for a player at once.
+    private static final int HIGHLIGHT_LIMIT = 64;
+    // The maximum amount of storages a storage group action reaches, besides the open storage.
+    private static final int GROUP_LIMIT = 32;
+    // Separates the name of the storage group from the rest of a storage's custom name.
+    private static final char GROUP_SEPARATOR = ':';
+    private static final Codec<Map<Item, Integer>> ITEM_COUNTS_CODEC = Codec.unboundedMap(Registries.ITEM.getCodec(), Codec.INT);
+    private static final Codec<Entry> ENTRY_CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            BlockPos.CODEC.fieldOf("pos").forGetter(Entry::pos),
+            ITEM_COUNTS_CODEC.fieldOf("items").forGetter(Entry::itemCounts),
+            Uuids.CODEC.optionalFieldOf("group_owner").forGetter(entry -> Optional.ofNullable(entry.groupOwner())),
+            Codec.BOOL.optionalFieldOf("locked", false).forGetter(Entry::locked)
+    ).apply(instance, (pos, itemCounts, groupOwner, locked) -> new Entry(pos, itemCounts, groupOwner.orElse(null), locked)));
+    private static final Codec<StorageCatalog> CODEC = ENTRY_CODEC.listOf().fieldOf("storages").codec()
+            .xmap(StorageCatalog::fromEntries, StorageCatalog::toEntries);
+    private static final PersistentStateType<StorageCatalog> TYPE = new PersistentStateType<>(
+            Reference.MOD_ID + "_storage_catalog", StorageCatalog::new, CODEC, null);
+    // The storages changed during the current tick, per world. Only accessed from the server thread.
+    private static final Map<ServerWorld, LongLinkedOpenHashSet> staleStorages = new Reference2ObjectOpenHashMap<>();
+    // The server tick of the last search of each player, as the search cooldown can't be left to the client. Only
+    // accessed from the server thread.
+    private static final Map<UUID, Integer> lastSearchTicks = new HashMap<>();
+
+    // The item counts of each storage, keyed by the long form of its position.
+    private final Long2ObjectMap<Object2IntMap<Item>> storages = new Long2ObjectOpenHashMap<>();
+    // The owner of each grouped storage, keyed by the long form of its position.
+    private final Long2ObjectMap<UUID> groupOwners = new Long2ObjectOpenHashMap<>();
+    // The positions of the indexed storages in each chunk, keyed by the long form of the chunk position.
+    private final Long2ObjectMap<LongSet> chunkStorages = new Long2ObjectOpenHashMap<>();
+    // The positions of the storages that were locked when they were last indexed.
+    private final LongSet lockedStorages = new LongOpenHashSet();
+
+    /**
+     * Gets the catalog of a world, creating it if it doesn't exist yet.
+     * @param world The world.
+     * @return The catalog.
+     */
+    public static StorageCatalog get(ServerWorld world) {
+        return world.getPersistentStateManager().getOrCreate(TYPE);
+    }
+
+    /**
+     * Checks whether the catalog is kept up to date, which the storage catalog and storage groups config properties
+     * both rely on.
+     * @return True if storages are indexed as they change, false otherwise.
+     */
+    public static boolean isIndexing() {
+        TerrastorageConfig.Snapshot config = ConfigManager.getSnapshot();
+        return config.storageCatalog() || config.storageGroups();
+    }
+
+    /**
+     * Queues a storage to be re-indexed at the end of the tick.
+     * @param world The world of the storage.
+     * @param pos The position of the storage.
+     */
+    public static void markStale(ServerWorld world, BlockPos pos) {
+        staleStorages.computeIfAbsent(world, k -> new LongLinkedOpenHashSet()).add(pos.asLong());
+    }
+
+    /**
+     * Queues a storage that was just loaded to be indexed at the end of the tick, if it isn't in the catalog yet.
+     * Storages that were placed before Terrastorage was installed are indexed this way, without having to be changed.
+     * @param blockEntity The loaded block entity.
+     * @param world The world of the block entity.
+     */
+    public static void onBlockEntityLoad(BlockEntity blockEntity, ServerWorld world) {
+        if (blockEntity instanceof Inventory && isIndexing() && world.getServer().isOnThread() &&
+                !get(world).storages.containsKey(blockEntity.getPos().asLong())) {
+            markStale(world, blockEntity.getPos());
+        }
+    }
+
+    /**
+     * Checks whether a player may search the catalog, and starts the search cooldown of the player if they may.
+     * Searches share the action cooldown, which the client already waits out, with a tick of leeway for the payloads
+     * that arrive a tick apart from when they were sent.
+     * @param player The player searching.
+     * @return True if the player's search cooldown is over, false otherwise.
+     */
+    public static boolean tryStartSearch(ServerPlayerEntity player) {
+        int cooldown = ConfigManager.getSnapshot().actionCooldown() - 1;
+        int currentTick = player.getWorld().getServer().getTicks();
+        Integer lastSearchTick = lastSearchTicks.get(player.getUuid());
+        if (cooldown > 0 && lastSearchTick != null && currentTick - lastSearchTick < cooldown) {
+            return false;
+        }
+
+        lastSearchTicks.put(player.getUuid(), currentTick);
+        return true;
+    }
+
+    /**
+     * Forgets the search cooldown of a player who left the server.
+     * @param player The player.
+     */
+    public static void forgetPlayer(ServerPlayerEntity player) {
+        lastSearchTicks.remove(player.getUuid());
+    }
+
+    /**
+     * Re-indexes the storages that were changed during the tick.
+     * Storages in chunks that are no longer loaded are left as they were last indexed.
+     */
+    public static void flush() {
+        if (staleStorages.isEmpty()) {
+            return;
+        }
+
+        staleStorages.forEach((world, positions) -> {
+            StorageCatalog catalog = get(world);
+            BlockPos.Mutable pos = new BlockPos.Mutable();
+            positions.forEach(packedPos -> {
+                pos.set(packedPos);
+                if (world.isPosLoaded(pos)) {
+                    catalog.index(packedPos, world.getBlockEntity(pos));
+                }
+            });
+        });
+        staleStorages.clear();
+    }
+
+    /**
+     * Finds the indexed storages holding an item within a cube around a position, nearest first.
+     * @param item The item.
+     * @param center The center of the search.
+     * @param radius The distance from the center to the faces of the cube, in blocks.
+     * @param limit The maximum amount of storages returned.
+     * @return The storages and the count of the item each holds.
+     */
+    public List<StorageMatch> find(Item item, BlockPos center, int radius, int limit) {
+        List<StorageMatch> matches = new ArrayList<>();
+        forEachNear(center, radius, radius, packedPos -> {
+            int count = storages.get(packedPos).getInt(item);
+            if (count > 0) {
+                matches.add(new StorageMatch(BlockPos.fromLong(packedPos), count));
+            }
+        });
+
+        matches.sort(Comparator.comparingDouble(match -> match.pos().getSquaredDistance(center)));
+        return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Finds the indexed storages holding an item within the quick stack volume of a player, nearest first. Storages
+     * are left out like Quick Stack To Nearby Storages leaves them out: storages the player can't open, and storages
+     * out of the player's sight when the line of sight check is enabled. Sight can only be checked to loaded storages,
+     * so storages that aren't loaded are left out while the check is enabled.
+     * @param player The player searching.
+     * @param item The item.
+     * @param limit The maximum amount of storages returned.
+     * @return The storages and the count of the item each holds.
+     */
+    public static List<StorageMatch> findNear(ServerPlayerEntity player, Item item, int limit) {
+        ServerWorld world = player.getWorld();
+        StorageCatalog catalog = get(world);
+        boolean performLosCheck = ConfigManager.getSnapshot().lineOfSightCheck();
+        List<StorageMatch> matches = new ArrayList<>();
+        // The candidates are checked nearest first, so the checks stop once enough storages were found.
+        for (StorageMatch candidate : catalog.findInQuickStackVolume(player, item)) {
+            if (matches.size() >= limit) {
+                break;
+            }
+
+            BlockPos pos = candidate.pos();
+            if (catalog.isLockedFor(player, pos, pos.asLong()) || performLosCheck && !isInSight(player, world, pos)) {
+                continue;
+            }
+
+            matches.add(candidate);
+        }
+
+        return matches;
+    }
+
+    /**
+     * Finds the indexed storages holding an item within the quick stack volume of a player, without checking them.
+     * @param player The player.
+     * @param item The item.
+     * @return The storages and the count of the item each holds, nearest first.
+     */
+    private List<StorageMatch> findInQuickStackVolume(ServerPlayerEntity player, Item item) {
+        TerrastorageConfig.Snapshot config = ConfigManager.getSnapshot();
+        int range = config.quickStackRange();
+        ScanShape shape = config.quickStackShape();
+        int verticalRange = config.quickStackVerticalRange();
+        BlockPos playerPos = player.getBlockPos();
+        List<StorageMatch> matches = new ArrayList<>();
+        forEachNear(playerPos, range, shape.getVerticalExtent(range, verticalRange), packedPos -> {
+            int count = storages.get(packedPos).getInt(item);
+            if (count == 0 || !shape.contains(BlockPos.unpackLongX(packedPos) - playerPos.getX(),
+                    BlockPos.unpackLongY(packedPos) - playerPos.getY(), BlockPos.unpackLongZ(packedPos) - playerPos.getZ(),
+                    range, verticalRange)) {
+                return;
+            }
+
+            matches.add(new StorageMatch(BlockPos.fromLong(packedPos), count));
+        });
+
+        matches.sort(Comparator.comparingDouble(match -> match.pos().getSquaredDistance(playerPos)));
+        return matches;
+    }
+
+    /**
+     * Goes through the indexed storages within a box around a position, using the chunk index.
+     * @param center The center of the box.
+     * @param radius The distance from the center to the sides of the box, in blocks.
+     * @param verticalRadius The distance from the center to the top and bottom of the box, in blocks.
+     * @param consumer Called with the long form of the position of each storage within the box.
+     */
+    private void forEachNear(BlockPos center, int radius, int verticalRadius, LongConsumer consumer) {
+        int minChunkX = (center.getX() - radius) >> 4;
+        int maxChunkX = (center.getX() + radius) >> 4;
+        int minChunkZ = (center.getZ() - radius) >> 4;
+        int maxChunkZ = (center.getZ() + radius) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                LongSet positions = chunkStorages.get(ChunkPos.toLong(chunkX, chunkZ));
+                if (positions == null) {
+                    continue;
+                }
+
+                positions.forEach((long packedPos) -> {
+                    if (Math.abs(BlockPos.unpackLongX(packedPos) - center.getX()) <= radius &&
+                            Math.abs(BlockPos.unpackLongY(packedPos) - center.getY()) <= verticalRadius &&
+                            Math.abs(BlockPos.unpackLongZ(packedPos) - center.getZ()) <= radius) {
+                        consumer.accept(packedPos);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Checks whether a player has line of sight to a storage, like Quick Stack To Nearby Storages checks it.
+     * @param player The player.
+     * @param world The world of the player.
+     * @param pos The position of the storage.
+     * @return True if the storage is loaded and in the player's line of sight, false otherwise.
+     */
+    private static boolean isInSight(ServerPlayerEntity player, ServerWorld world, BlockPos pos) {
+        return world.isPosLoaded(pos) && InventoryUtils.hasLineOfSight(player, world, pos) != Vec3d.ZERO;
+    }
+
+    /**
+     * Checks whether an indexed storage is locked to a player. Loaded storages are checked against the key the player is
+     * holding, like opening them would be, and storages that aren't loaded are treated as locked if they were locked
+     * when they were last indexed.
+     * @param player The player.
+     * @param pos The position of the storage.
+     * @param packedPos The long form of the position.
+     * @return True if the player can't open the storage, false otherwise.
+     */
+    private boolean isLockedFor(ServerPlayerEntity player, BlockPos pos, long packedPos) {
+        if (player.isSpectator()) {
+            return false;
+        }
+
+        ServerWorld world = player.getWorld();
+        if (world.isPosLoaded(pos)) {
+            return world.getBlockEntity(pos) instanceof LockableContainerBlockEntityAccessor accessor &&
+                    !accessor.getLock().canOpen(player.getMainHandStack());
+        }
+
+        return lockedStorages.contains(packedPos);
+    }
+
+    /**
+     * Finds the storages within the quick stack volume of a player that hold a stack of the same item and components.
+     * The catalog narrows the search down to the storages holding the item, and only those are read to match the
+     * components. Storages are left out like Quick Stack To Nearby Storages leaves them out: storages the player can't
+     * open, and storages out of the player's sight when the line of sight check is enabled.
+     * @param player The player.
+     * @param stack The stack searched for.
+     * @return The positions of the storages holding the stack, nearest first.
+     */
+    public static List<BlockPos> findHolding(ServerPlayerEntity player, ItemStack stack) {
+        if (stack.isEmpty()) {
+            return List.of();
+        }
+
+        ServerWorld world = player.getWorld();
+        boolean performLosCheck = ConfigManager.getSnapshot().lineOfSightCheck();
+        List<BlockPos> positions = new ArrayList<>();
+        // The limit is applied once the candidates are checked, so storages that are left out don't take up its room.
+        for (StorageMatch candidate : get(world).findInQuickStackVolume(player, stack.getItem())) {
+            if (positions.size() >= HIGHLIGHT_LIMIT) {
+                break;
+            }
+
+            BlockPos pos = candidate.pos();
+            if (!world.isPosLoaded(pos) || !(world.getBlockEntity(pos) instanceof Inventory inventory) ||
+                    InventoryUtils.hasPendingLoot(inventory)) {
+                continue;
+            }
+            if (inventory instanceof LockableContainerBlockEntityAccessor lockable && !player.isSpectator() &&
+                    !lockable.getLock().canOpen(player.getMainHandStack())) {
+                continue;
+            }
+            if (!holdsStack(inventory, stack) || performLosCheck && !isInSight(player, world, pos)) {
+                continue;
+            }
+
+            positions.add(pos);
+        }
+
+        return positions;
+    }
+
+    private static boolean holdsStack(Inventory inventory, ItemStack stack) {
+        for (int i = 0; i < inventory.size(); i++) {
+            if (InventoryUtils.areItemsAndComponentsEqual(inventory.getStack(i), stack)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the group name of a storage from its custom name, which is the part of the name before the group separator.
+     * For example, storages named "Ores: Iron" and "Ores: Gold" are both in the "Ores" group.
+     * @param customName The custom name of the storage, if any.
+     * @return The group name, or null if the storage isn't in a group.
+     */
+    public static @Nullable String getGroupName(@Nullable Text customName) {
+        if (customName == null) {
+            return null;
+        }
+
+        String name = customName.getString();
+        int separatorIndex = name.indexOf(GROUP_SEPARATOR);
+        if (separatorIndex <= 0) {
+            return null;
+        }
+
+        String groupName = name.substring(0, separatorIndex).trim();
+        return groupName.isEmpty() ? null : groupName;
+    }
+
+    /**
+     * Records the player who gave a storage its group name as the owner of the storage's group membership.
+     * @param world The world of the storage.
+     * @param pos The position of the storage.
+     * @param owner The UUID of the player.
+     */
+    public static void setGroupOwner(ServerWorld world, BlockPos pos, UUID owner) {
+        StorageCatalog catalog = get(world);
+        if (!owner.equals(catalog.groupOwners.put(pos.asLong(), owner))) {
+            catalog.markDirty();
+        }
+    }
+
+    /**
+     * Carries the group owner of a storage over to another storage that took its name, such as the second part of a
+     * double chest.
+     * @param world The world of the storages.
+     * @param from The position of the storage whose owner is carried over.
+     * @param to The position of the storage that took its name.
+     */
+    public static void copyGroupOwner(ServerWorld world, BlockPos from, BlockPos to) {
+        UUID owner = get(world).groupOwners.get(from.asLong());
+        if (owner != null) {
+            setGroupOwner(world, to, owner);
+        }
+    }
+
+    /**
+     * Gets an inventory spanning the storage group of the storage a player has open, so a storage action can target
+     * the whole group at once. The group is made of the open storage, followed by the storages within the quick stack
+     * volume of the player that share its group name and group owner, nearest first. The catalog narrows the storages
+     * down to those of the group owner, and only those are loaded and checked. Like Quick Stack To Nearby Storages,
+     * storages the player can't open, and storages out of the player's sight when the line of sight check is enabled,
+     * are left out.
+     * @param player The player.
+     * @param storageInventory The inventory of the open storage.
+     * @return A GroupInventory of the group, or the open storage's inventory if it isn't in a group or is alone in it.
+     */
+    public static Inventory getGroupInventory(ServerPlayerEntity player, Inventory storageInventory) {
+        Inventory namedPart = storageInventory instanceof DoubleInventoryAccessor accessor ? accessor.first() : storageInventory;
+        if (!(namedPart instanceof LockableContainerBlockEntity lockable)) {
+            return storageInventory;
+        }
+
+        String groupName = getGroupName(lockable.getCustomName());
+        ServerWorld world = player.getWorld();
+        StorageCatalog catalog = get(world);
+        UUID owner = catalog.groupOwners.get(lockable.getPos().asLong());
+        if (groupName == null || owner == null) {
+            return storageInventory;
+        }
+
+        // The parts of the open storage are left out of the nearby storages.
+        Set<Inventory> openParts = new ReferenceOpenHashSet<>();
+        if (storageInventory instanceof DoubleInventoryAccessor accessor) {
+            openParts.add(accessor.first());
+            openParts.add(accessor.second());
+        }
+        else {
+            openParts.add(storageInventory);
+        }
+
+        TerrastorageConfig.Snapshot config = ConfigManager.getSnapshot();
+        int range = config.quickStackRange();
+        ScanShape shape = config.quickStackShape();
+        int verticalRange = config.quickStackVerticalRange();
+        boolean performLosCheck = config.lineOfSightCheck();
+        BlockPos playerPos = player.getBlockPos();
+        List<BlockPos> candidates = new ArrayList<>();
+        catalog.forEachNear(playerPos, range, shape.getVerticalExtent(range, verticalRange), packedPos -> {
+            if (owner.equals(catalog.groupOwners.get(packedPos)) && shape.contains(BlockPos.unpackLongX(packedPos) - playerPos.getX(),
+                    BlockPos.unpackLongY(packedPos) - playerPos.getY(), BlockPos.unpackLongZ(packedPos) - playerPos.getZ(),
+                    range, verticalRange)) {
+                candidates.add(BlockPos.fromLong(packedPos));
+            }
+        });
+        candidates.sort(Comparator.comparingDouble(pos -> pos.getSquaredDistance(playerPos)));
+
+        List<Inventory> members = new ArrayList<>();
+        members.add(storageInventory);
+        Set<BlockPos> processedChests = new HashSet<>();
+        for (BlockPos pos : candidates) {
+            if (members.size() > GROUP_LIMIT) {
+                break;
+            }
+            if (processedChests.contains(pos) || !world.isPosLoaded(pos) ||
+                    !(world.getBlockEntity(pos) instanceof LockableContainerBlockEntity memberLockable) ||
+                    openParts.contains(memberLockable) || !groupName.equals(getGroupName(memberLockable.getCustomName()))) {
+                continue;
+            }
+
+            Inventory inventory = getWholeChest(world, pos, memberLockable, processedChests);
+            if (inventory == null || InventoryUtils.hasPendingLoot(inventory) || catalog.isLockedFor(player, pos, pos.asLong()) ||
+                    performLosCheck && !isInSight(player, world, pos)) {
+                continue;
+            }
+
+            members.add(inventory);
+        }
+
+        return members.size() == 1 ? storageInventory : new GroupInventory(members);
+    }
+
+    /**
+     * Gets the inventory of a whole chest from one of its parts, joining the parts of a double chest like opening it
+     * would.
+     * @param world The world of the chest.
+     * @param pos The position of the part.
+     * @param part The block entity of the part.
+     * @param processedChests The positions of the parts already joined, which the other part is added to.
+     * @return The inventory of the chest, or null if the other part of a double chest is missing.
+     */
+    private static @Nullable Inventory getWholeChest(ServerWorld world, BlockPos pos, LockableContainerBlockEntity part, Set<BlockPos> processedChests) {
+        BlockState state = world.getBlockState(pos);
+        if (!(part instanceof ChestBlockEntity) || !state.contains(ChestBlock.CHEST_TYPE) ||
+                state.get(ChestBlock.CHEST_TYPE) == ChestType.SINGLE) {
+            return part;
+        }
+
+        BlockPos neighboringChestPos = pos.offset(ChestBlock.getFacing(state));
+        if (!(world.getBlockEntity(neighboringChestPos) instanceof ChestBlockEntity neighboringChest)) {
+            return null;
+        }
+
+        processedChests.add(neighboringChestPos);
+        return state.get(ChestBlock.CHEST_TYPE) == ChestType.RIGHT ?
+                new DoubleInventory(part, neighboringChest) :
+                new DoubleInventory(neighboringChest, part);
+    }
+
+    /**
+     * Indexes the storage at a position, or removes it from the catalog if it's no longer a storage.
+     * Storages whose loot is yet to be generated are left as they were, as reading them would generate it.
+     * @param packedPos The long form of the position.
+     * @param blockEntity The block entity at the position, if any.
+     */
+    private void index(long packedPos, BlockEntity blockEntity) {
+        if (!(blockEntity instanceof Inventory inventory) || blockEntity.isRemoved() || inventory.size() < 27) {
+            boolean wasIndexed = storages.remove(packedPos) != null;
+            groupOwners.remove(packedPos);
+            lockedStorages.remove(packedPos);
+            if (wasIndexed) {
+                removeFromChunk(packedPos);
+                markDirty();
+            }
+            return;
+        }
+        if (InventoryUtils.hasPendingLoot(inventory)) {
+            return;
+        }
+
+        Object2IntMap<Item> itemCounts = new Object2IntOpenHashMap<>();
+        for (int i = 0; i < inventory.size(); i++) {
+            ItemStack stack = inventory.getStack(i);
+            if (!stack.isEmpty()) {
+                itemCounts.mergeInt(stack.getItem(), stack.getCount(), Integer::sum);
+            }
+        }
+
+        Object2IntMap<Item> previousItemCounts = storages.put(packedPos, itemCounts);
+        if (previousItemCounts == null) {
+            addToChunk(packedPos);
+        }
+        if (!itemCounts.equals(previousItemCounts)) {
+            markDirty();
+        }
+
+        boolean locked = blockEntity instanceof LockableContainerBlockEntityAccessor accessor &&
+                !ContainerLock.EMPTY.equals(accessor.getLock());
+        if (locked ? lockedStorages.add(packedPos) : lockedStorages.remove(packedPos)) {
+            markDirty();
+        }
+
+        // The owner is recorded when the group name is given, and is dropped once the storage leaves its group.
+        String groupName = blockEntity instanceof LockableContainerBlockEntity lockable ? getGroupName(lockable.getCustomName()) : null;
+        if (groupName == null && groupOwners.remove(packedPos) != null) {
+            markDirty();
+        }
+    }
+
+    private void addToChunk(long packedPos) {
+        chunkStorages.computeIfAbsent(getChunkKey(packedPos), k -> new LongOpenHashSet()).add(packedPos);
+    }
+
+    private void removeFromChunk(long packedPos) {
+        long chunkKey = getChunkKey(packedPos);
+        LongSet positions = chunkStorages.get(chunkKey);
+        if (positions != null && positions.remove(packedPos) && positions.isEmpty()) {
+            chunkStorages.remove(chunkKey);
+        }
+    }
+
+    private static long getChunkKey(long packedPos) {
+        return ChunkPos.toLong(BlockPos.unpackLongX(packedPos) >> 4, BlockPos.unpackLongZ(packedPos) >> 4);
+    }
+
+    private static StorageCatalog fromEntries(List<Entry> entries) {
+        StorageCatalog catalog = new StorageCatalog();
+        for (Entry entry : entries) {
+            long packedPos = entry.pos().asLong();
+            catalog.storages.put(packedPos, new Object2IntOpenHashMap<>(entry.itemCounts()));
+            catalog.addToChunk(packedPos);
+            if (entry.groupOwner() != null) {
+                catalog.groupOwners.put(packedPos, entry.groupOwner());
+            }
+            if (entry.locked()) {
+                catalog.lockedStorages.add(packedPos);
+            }
+        }
+
+        return catalog;
+    }
+
+    private List<Entry> toEntries() {
+        List<Entry> entries = new ArrayList<>(storages.size());
+        storages.forEach((packedPos, itemCounts) -> entries.add(new Entry(BlockPos.fromLong(packedPos), itemCounts,
+                groupOwners.get(packedPos.longValue()), lockedStorages.contains(packedPos.longValue()))));
+        return entries;
+    }
+
+    /**
+     * The saved form of an indexed storage.
+     * @param pos The position of the storage.
+     * @param itemCounts The total count of each item in the storage.
+     * @param groupOwner The UUID of the player who gave the storage its group name, or null if it isn't in a group.
+     * @param locked Whether the storage was locked when it was last indexed.
+     */
+    private record Entry(BlockPos pos, Map<Item, Integer> itemCounts, @Nullable UUID groupOwner, boolean locked) { }
+}
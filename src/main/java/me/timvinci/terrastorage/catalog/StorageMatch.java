@@ -0,0 +1,10 @@
+package me.timvinci.terrastorage.catalog;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * A storage found by a StorageCatalog search.
+ * @param pos The position of the storage.
+ * @param count The count of the searched item in the storage.
+ */
+public record StorageMatch(BlockPos pos, int count) { }
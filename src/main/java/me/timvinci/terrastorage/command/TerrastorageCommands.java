@@ -5,16 +5,34 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import me.timvinci.terrastorage.Terrastorage;
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import me.timvinci.terrastorage.catalog.StorageMatch;
 import me.timvinci.terrastorage.config.ConfigManager;
 import me.timvinci.terrastorage.config.TerrastorageConfig;
 import me.timvinci.terrastorage.network.NetworkHandler;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.stats.WorldStats;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
 import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.ScanShape;
 import me.timvinci.terrastorage.util.TextStyler;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.argument.ItemStackArgumentType;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryKey;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -24,7 +42,8 @@ import java.util.function.Supplier;
 public class TerrastorageCommands {
 
     /**
-     * Registers the commands for modifying the server config properties.
+     * Registers the commands for modifying the server config properties, for reading the operation stats, and for
+     * searching the storage catalog.
      */
     public static void registerCommands() {
         TerrastorageConfig config = ConfigManager.getInstance().getConfig();
@@ -49,6 +68,24 @@ public class TerrastorageCommands {
                             .executes(context -> executeSetValue(context, IntegerArgumentType.getInteger(context, "value"), config::setQuickStackRange, "Quick Stack Range", " blocks"))
                     )
                 )
+                .then(CommandManager.literal("quick-stack-shape")
+                    .executes(context -> executeGetValue(context, config::getQuickStackShape, "Quick Stack Shape", ""))
+                    .then(CommandManager.literal("cube")
+                            .executes(context -> executeSetValue(context, ScanShape.CUBE, config::setQuickStackShape, "Quick Stack Shape", ""))
+                    )
+                    .then(CommandManager.literal("sphere")
+                            .executes(context -> executeSetValue(context, ScanShape.SPHERE, config::setQuickStackShape, "Quick Stack Shape", ""))
+                    )
+                    .then(CommandManager.literal("cylinder")
+                            .executes(context -> executeSetValue(context, ScanShape.CYLINDER, config::setQuickStackShape, "Quick Stack Shape", ""))
+                    )
+                )
+                .then(CommandManager.literal("quick-stack-vertical-range")
+                    .executes(context -> executeGetValue(context, config::getQuickStackVerticalRange, "Quick Stack Vertical Range", " blocks"))
+                    .then(CommandManager.argument("value", IntegerArgumentType.integer(1, 48))
+                            .executes(context -> executeSetValue(context, IntegerArgumentType.getInteger(context, "value"), config::setQuickStackVerticalRange, "Quick Stack Vertical Range", " blocks"))
+                    )
+                )
                 .then(CommandManager.literal("item-animation-length")
                     .executes(context -> executeGetValue(context, config::getItemAnimationLength, "Item Animation Length", " ticks"))
                     .then(CommandManager.argument("value", IntegerArgumentType.integer(0, 200))
@@ -66,6 +103,62 @@ public class TerrastorageCommands {
                     .then(CommandManager.argument("value", BoolArgumentType.bool())
                             .executes(context -> executeSetValue(context, BoolArgumentType.getBool(context, "value"), config::setKeepFavoritesOnDrop, "Keep Favorites On Drop", ""))
                     )
+                )
+                .then(CommandManager.literal("slow-action-threshold")
+                    .executes(context -> executeGetValue(context, config::getSlowActionThreshold, "Slow Action Threshold", " ms"))
+                    .then(CommandManager.argument("value", IntegerArgumentType.integer(0, 10000))
+                            .executes(context -> executeSetValue(context, IntegerArgumentType.getInteger(context, "value"), config::setSlowActionThreshold, "Slow Action Threshold", " ms"))
+                    )
+                )
+                .then(CommandManager.literal("shadow-check-interval")
+                    .executes(context -> executeGetValue(context, config::getShadowCheckInterval, "Shadow Check Interval", " actions"))
+                    .then(CommandManager.argument("value", IntegerArgumentType.integer(0, 10000))
+                            .executes(context -> executeSetValue(context, IntegerArgumentType.getInteger(context, "value"), config::setShadowCheckInterval, "Shadow Check Interval", " actions"))
+                    )
+                )
+                .then(CommandManager.literal("state-building-threads")
+                    .executes(context -> executeGetValue(context, config::getStateBuildingThreads, "State Building Threads", ""))
+                    .then(CommandManager.argument("value", IntegerArgumentType.integer(0, 8))
+                            .executes(context -> executeSetValue(context, IntegerArgumentType.getInteger(context, "value"), config::setStateBuildingThreads, "State Building Threads", ""))
+                    )
+                )
+                .then(CommandManager.literal("storage-catalog")
+                    .executes(context -> executeGetValue(context, config::getStorageCatalog, "Storage Catalog", ""))
+                    .then(CommandManager.argument("value", BoolArgumentType.bool())
+                            .executes(context -> executeSetValue(context, BoolArgumentType.getBool(context, "value"), config::setStorageCatalog, "Storage Catalog", ""))
+                    )
+                )
+                .then(CommandManager.literal("storage-groups")
+                    .executes(context -> executeGetValue(context, config::getStorageGroups, "Storage Groups", ""))
+                    .then(CommandManager.argument("value", BoolArgumentType.bool())
+                            .executes(context -> executeSetValue(context, BoolArgumentType.getBool(context, "value"), config::setStorageGroups, "Storage Groups", ""))
+                    )
+                )
+                .then(CommandManager.literal("transfer-api-storages")
+                    .executes(context -> executeGetValue(context, config::getTransferApiStorages, "Transfer API Storages", ""))
+                    .then(CommandManager.argument("value", BoolArgumentType.bool())
+                            .executes(context -> executeSetValue(context, BoolArgumentType.getBool(context, "value"), config::setTransferApiStorages, "Transfer API Storages", ""))
+                    )
+                )
+                .then(CommandManager.literal("stats")
+                    .executes(TerrastorageCommands::executeGetStats)
+                    .then(CommandManager.literal("reset")
+                            .executes(TerrastorageCommands::executeResetStats)
+                    )
+                )
+                .then(CommandManager.literal("find")
+                    .then(CommandManager.argument("item", ItemStackArgumentType.itemStack(registryAccess))
+                            .executes(context -> executeFind(context, ItemStackArgumentType.getItemStackArgument(context, "item").getItem()))
+                    )
+                )
+                .then(CommandManager.literal("trace")
+                    .executes(TerrastorageCommands::executeGetTraceStatus)
+                    .then(CommandManager.literal("start")
+                            .executes(TerrastorageCommands::executeStartTrace)
+                    )
+                    .then(CommandManager.literal("stop")
+                            .executes(TerrastorageCommands::executeStopTrace)
+                    )
                 );
 
             if (Terrastorage.environmentIsServer) {
@@ -110,7 +203,7 @@ public class TerrastorageCommands {
      */
     private static <T> int executeSetValue(CommandContext<ServerCommandSource> context, T value, Consumer<T> setter, String propertyName, String valueUnit) {
         setter.accept(value);
-        if (ConfigManager.getInstance().saveConfig()) {
+        if (ConfigManager.getInstance().scheduleSave()) {
             context.getSource().sendFeedback(
                     () -> TextStyler.stylePropertyUpdated(propertyName, value, valueUnit),
                     true
@@ -131,9 +224,114 @@ public class TerrastorageCommands {
         return 1;
     }
 
+    /**
+     * Sends the latency percentiles and counters of the operations performed in each world to the command issuer.
+     * @param context The command context.
+     * @return 1, to state a successful command use.
+     */
+    private static int executeGetStats(CommandContext<ServerCommandSource> context) {
+        Map<RegistryKey<World>, WorldStats> worldStats = TerrastorageStats.getWorldStats();
+        MutableText message = TextStyler.styleTitle("Terrastorage Stats");
+        if (worldStats.isEmpty()) {
+            message.append(TextStyler.styleText(Text.literal("\nNo operations were recorded yet.")));
+        }
+
+        worldStats.forEach((worldKey, stats) -> {
+            message.append(Text.literal("\n"))
+                    .append(TextStyler.styleTitle(worldKey.getValue() + "\n"))
+                    .append(TextStyler.styleGetProperty("Storages scanned", stats.getStoragesScanned(), ", "))
+                    .append(TextStyler.styleGetProperty("slots examined", stats.getSlotsExamined(), ", "))
+                    .append(TextStyler.styleGetProperty("stacks moved", stats.getStacksMoved(), ", "))
+                    .append(TextStyler.styleGetProperty("items moved", stats.getItemsMoved(), ""));
+
+            stats.getLatencies().forEach((operation, histogram) -> message.append(Text.literal("\n")).append(
+                    TextStyler.styleGetProperty(" " + operation, String.format(Locale.ROOT,
+                            "%d ops, mean %.3f, p50 %.3f, p99 %.3f, max %.3f",
+                            histogram.getCount(),
+                            histogram.getMeanNanos() / 1_000_000.0,
+                            histogram.getValueAtPercentile(50) / 1_000_000.0,
+                            histogram.getValueAtPercentile(99) / 1_000_000.0,
+                            histogram.getMaxNanos() / 1_000_000.0), " ms")
+            ));
+        });
+
+        context.getSource().sendFeedback(() -> message, false);
+        return 1;
+    }
+
+    private static int executeResetStats(CommandContext<ServerCommandSource> context) {
+        TerrastorageStats.reset();
+        context.getSource().sendFeedback(() -> TextStyler.styleTitle("Terrastorage Stats Reset"), true);
+        return 1;
+    }
+
+    /**
+     * Sends the indexed storages holding an item around the command issuer, nearest first.
+     * @param context The command context.
+     * @param item The item searched for.
+     * @return The amount of storages found.
+     */
+    private static int executeFind(CommandContext<ServerCommandSource> context, Item item) {
+        if (!ConfigManager.getSnapshot().storageCatalog()) {
+            context.getSource().sendFeedback(() -> TextStyler.error("terrastorage.message.storage_catalog_disabled"), false);
+            return 0;
+        }
+
+        BlockPos center = BlockPos.ofFloored(context.getSource().getPosition());
+        List<StorageMatch> matches = StorageCatalog.get(context.getSource().getWorld())
+                .find(item, center, StorageCatalog.FIND_RADIUS, StorageCatalog.FIND_LIMIT);
+
+        MutableText message = TextStyler.styleTitle("Storages Holding " + Registries.ITEM.getId(item));
+        if (matches.isEmpty()) {
+            message.append(TextStyler.styleText(Text.literal("\nNo indexed storages within " + StorageCatalog.FIND_RADIUS + " blocks hold this item.")));
+        }
+        for (StorageMatch match : matches) {
+            message.append(Text.literal("\n")).append(TextStyler.styleGetProperty(match.pos().toShortString(), match.count(), " items"));
+        }
+
+        context.getSource().sendFeedback(() -> message, false);
+        return matches.size();
+    }
+
+    private static int executeGetTraceStatus(CommandContext<ServerCommandSource> context) {
+        context.getSource().sendFeedback(() -> ActionTraceRecorder.isRecording() ?
+                TextStyler.styleGetProperty("Action Trace", ActionTraceRecorder.getRecordedCount(), " operations recorded to " + ActionTraceRecorder.getTracePath().getFileName()) :
+                TextStyler.styleGetProperty("Action Trace", "not recording", ""),
+                false);
+        return 1;
+    }
+
+    /**
+     * Starts recording the inputs of storage operations to a new trace file.
+     * @param context The command context.
+     * @return 1, to state a successful command use.
+     */
+    private static int executeStartTrace(CommandContext<ServerCommandSource> context) {
+        try {
+            Path tracePath = ActionTraceRecorder.start();
+            context.getSource().sendFeedback(() -> TextStyler.styleGetProperty("Action Trace Started", tracePath.getFileName(), ""), true);
+        } catch (IOException e) {
+            Terrastorage.LOGGER.error("Failed to start recording an action trace.", e);
+            context.getSource().sendFeedback(() -> TextStyler.error("terrastorage.message.trace_start_error"), false);
+        }
+
+        return 1;
+    }
+
+    private static int executeStopTrace(CommandContext<ServerCommandSource> context) {
+        Path tracePath = ActionTraceRecorder.getTracePath();
+        boolean wasRecording = ActionTraceRecorder.isRecording();
+        int recordedCount = ActionTraceRecorder.stop();
+        context.getSource().sendFeedback(() -> wasRecording ?
+                TextStyler.styleGetProperty("Action Trace Stopped", recordedCount, " operations recorded to " + tracePath.getFileName()) :
+                TextStyler.styleGetProperty("Action Trace", "not recording", ""),
+                true);
+        return 1;
+    }
+
     private static int executeUpdateItemFavoriting(CommandContext<ServerCommandSource> context, boolean value, Consumer<Boolean> setter) {
         setter.accept(value);
-        if (ConfigManager.getInstance().saveConfig()) {
+        if (ConfigManager.getInstance().scheduleSave()) {
             context.getSource().sendFeedback(() ->
                     TextStyler.styleTitle("Item Favoriting Updated\n")
                         .append(TextStyler.styleText(Text.translatable("terrastorage.message." + (value ? "enabled" : "disabled") + "_item_favoriting")))
@@ -1,14 +1,27 @@
 package me.timvinci.terrastorage.config;
 
+import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.file.CommentedFileConfig;
+import com.electronwill.nightconfig.core.file.FileNotFoundAction;
+import com.electronwill.nightconfig.core.io.ParsingMode;
 import com.electronwill.nightconfig.core.io.ParsingException;
+import com.electronwill.nightconfig.core.io.WritingException;
 import com.electronwill.nightconfig.core.io.WritingMode;
-import me.timvinci.terrastorage.Terrastorage;
+import com.electronwill.nightconfig.toml.TomlFormat;
 import net.fabricmc.loader.api.FabricLoader;
 import org.slf4j.Logger;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -17,15 +30,40 @@ import java.util.function.Consumer;
  * @param <T> The Terrastorage config type.
  */
 public abstract class BaseConfigManager<T> {
+    // The delay before a scheduled save is written, during which further changes replace the pending save.
+    private static final long SAVE_DEBOUNCE_MILLIS = 500;
+    // The time given to the config writer to finish a write that is in progress when it's shut down.
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+    // Guards the creation and shutdown of the config writer.
+    private static final Object WRITER_LOCK = new Object();
+    // A single background thread shared by all config managers, so config files are never written concurrently.
+    // Created on first use, and recreated after a shutdown, as an integrated server may start and stop many times.
+    private static ScheduledExecutorService configWriter;
     protected final Path configFilePath;
     // Define an instance of the config.
     protected T config;
     protected final Logger logger;
+    // The descriptors of the annotated properties of the config class, compiled once.
+    protected final List<ConfigPropertyDescriptor> properties;
+    // Guards the pending snapshot, scheduled save, and snapshot generation.
+    private final Object saveLock = new Object();
+    // Guards the writing of the config file, and the generation of the snapshot written last.
+    private final Object writeLock = new Object();
+    private CommentedConfig pendingSnapshot;
+    private long pendingGeneration;
+    private ScheduledFuture<?> pendingSave;
+    // Incremented for every captured snapshot, so an older snapshot is never written over a newer one.
+    private long snapshotGeneration = 0;
+    private long writtenGeneration = 0;
+    // Whether the config file could be parsed the last time it was read. A file that can't be parsed is never saved
+    // over, so the user's file isn't lost.
+    private volatile boolean fileReadable = true;
 
     protected BaseConfigManager(String configFileName, Logger logger) {
         this.configFilePath = FabricLoader.getInstance().getConfigDir().resolve(configFileName);
         this.config = getDefaultConfig();
         this.logger = logger;
+        this.properties = ConfigPropertyDescriptor.compile(config.getClass(), logger);
     }
 
     protected abstract T getDefaultConfig();
@@ -36,8 +74,10 @@ public abstract class BaseConfigManager<T> {
     public void loadConfig() {
         CommentedFileConfig fileConfig = buildFileConfig(configFilePath);
         if (loadFileConfigFailed(fileConfig, "using default values for all properties")) {
+            fileReadable = false;
             return;
         }
+        fileReadable = true;
 
         if (!fileConfig.getFile().exists() || fileConfig.isEmpty()) {
             fileConfig.close();
@@ -45,137 +85,254 @@ public abstract class BaseConfigManager<T> {
         } else {
             loadAnnotatedProperties(fileConfig);
             fileConfig.close();
+            onConfigChanged();
         }
     }
 
     /**
-     * Saves the config properties of the config instance to the config file.
+     * Called once the config instance was changed and those changes are being committed, after the config is loaded,
+     * and before it is saved.
+     */
+    protected void onConfigChanged() { }
+
+    /**
+     * Saves the config properties of the config instance to the config file, on the calling thread.
+     * Replaces any save that was scheduled but not yet written.
      * @return True if the save was carried out without any errors, false otherwise.
      */
     public boolean saveConfig() {
-        CommentedFileConfig fileConfig = buildFileConfig(configFilePath);
-        if (loadFileConfigFailed(fileConfig, "couldn't save values to config file")) {
-            return false;
+        onConfigChanged();
+        CommentedConfig snapshot = createSnapshot();
+        boolean hasNoErrors;
+        long generation;
+        synchronized (saveLock) {
+            hasNoErrors = writeAnnotatedProperties(snapshot);
+            generation = ++snapshotGeneration;
+            cancelPendingSave();
         }
 
-        boolean hasNoErrors = writeAnnotatedProperties(fileConfig);
-        fileConfig.save();
-        fileConfig.close();
-        return hasNoErrors;
+        return writeConfigFile(snapshot, generation) && hasNoErrors;
     }
 
     /**
-     * Loads the value of each property in the config file, to its annotated field in the config instance.
-     * @param fileConfig The CommentedFileConfig created from the config file.
+     * Schedules a save of the config properties of the config instance on the background config writer.
+     * The property values are captured on the calling thread, and a burst of scheduled saves results in a single write
+     * of the latest values. Errors that occur while writing are logged.
+     * @return True if the property values were captured without any errors and the config file could be parsed the
+     * last time it was read, false otherwise.
      */
-    @SuppressWarnings("unchecked")
-    protected void loadAnnotatedProperties(CommentedFileConfig fileConfig) {
-        for (Field field : config.getClass().getDeclaredFields()) {
-            if (!field.isAnnotationPresent(ConfigProperty.class) || field.isAnnotationPresent(ServerExclusive.class) && !Terrastorage.environmentIsServer) {
-                continue;
+    public boolean scheduleSave() {
+        onConfigChanged();
+        CommentedConfig snapshot = createSnapshot();
+        boolean hasNoErrors;
+        synchronized (saveLock) {
+            hasNoErrors = writeAnnotatedProperties(snapshot);
+            if (pendingSave != null) {
+                pendingSave.cancel(false);
             }
 
-            if (field.trySetAccessible()) {
-                ConfigProperty property = field.getAnnotation(ConfigProperty.class);
-                String propertyKey = property.key();
+            pendingSnapshot = snapshot;
+            pendingGeneration = ++snapshotGeneration;
+            pendingSave = getConfigWriter().schedule(this::writePendingSnapshot, SAVE_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
 
-                if (field.isAnnotationPresent(PropertyRange.class)) {
-                    PropertyRange range = field.getAnnotation(PropertyRange.class);
-                    loadIntegerProperty(fileConfig, propertyKey, value -> setFieldValue(field, value, propertyKey), range.min(), range.max());
-                }
-                else if (field.getType().isEnum()) {
-                    loadEnumProperty(fileConfig, propertyKey, value -> setFieldValue(field, value, propertyKey), (Class<Enum>) field.getType());
-                }
-                else {
-                    loadProperty(fileConfig, propertyKey, value -> setFieldValue(field, value, propertyKey));
-                }
+        return hasNoErrors && fileReadable;
+    }
+
+    /**
+     * Writes a scheduled save right away on the calling thread, if there is one.
+     */
+    public void flushPendingSave() {
+        writePendingSnapshot();
+    }
+
+    /**
+     * Takes the pending snapshot, if there is one, and writes it to the config file.
+     */
+    private void writePendingSnapshot() {
+        CommentedConfig snapshot;
+        long generation;
+        synchronized (saveLock) {
+            snapshot = pendingSnapshot;
+            generation = pendingGeneration;
+            cancelPendingSave();
+        }
+
+        if (snapshot != null) {
+            writeConfigFile(snapshot, generation);
+        }
+    }
+
+    /**
+     * Shuts down the config writer, and waits for the saves still scheduled on it to be written.
+     * The config writer is recreated the next time a save is scheduled.
+     */
+    public static void shutdownConfigWriter() {
+        ScheduledExecutorService writer;
+        synchronized (WRITER_LOCK) {
+            writer = configWriter;
+            configWriter = null;
+        }
+
+        if (writer == null) {
+            return;
+        }
+
+        // Saves that are already scheduled are still written after shutdown, once their delay has passed.
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
             }
-            else {
-                logger.error("Failed to set field '{}' as accessible.", field.getName());
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the config writer, creating it if it wasn't created yet or was shut down.
+     * @return The config writer.
+     */
+    private static ScheduledExecutorService getConfigWriter() {
+        synchronized (WRITER_LOCK) {
+            if (configWriter == null) {
+                configWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "Terrastorage Config Writer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
             }
+
+            return configWriter;
         }
     }
 
     /**
-     * Sets the value of a field in the config instance.
-     * @param field The setter method of the field.
-     * @param value The new value.
-     * @param propertyKey The key of the field.
+     * Cancels the scheduled save and discards its snapshot. Must be called while holding the save lock.
      */
-    protected void setFieldValue(Field field, Object value, String propertyKey) {
-        try {
-            field.set(config, value);
-        } catch (IllegalAccessException e) {
-            logger.error("Failed to set field value of configuration property '{}'.", propertyKey, e);
+    private void cancelPendingSave() {
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+            pendingSave = null;
         }
+
+        pendingSnapshot = null;
     }
 
     /**
-     * Writes the key, comment, and value of each annotated field in the config instance, to the config file.
+     * Merges a snapshot of the config properties into the contents of the config file, and writes them to a temporary
+     * file which is then moved over the config file, so the config file is never left partially written.
+     * Keys of the config file that aren't part of the snapshot, like server exclusive properties on the client, or keys
+     * unknown to this version, are kept. A config file that can't be parsed isn't saved over.
+     * @param snapshot The snapshot to write.
+     * @param generation The generation of the snapshot. Skipped if a newer snapshot was already written.
+     * @return True if the config file was written, or a newer snapshot already was, false otherwise.
+     */
+    private boolean writeConfigFile(CommentedConfig snapshot, long generation) {
+        Path tempFilePath = configFilePath.resolveSibling(configFilePath.getFileName() + ".tmp");
+        synchronized (writeLock) {
+            if (generation < writtenGeneration) {
+                return true;
+            }
+
+            CommentedConfig fileContents = createSnapshot();
+            try {
+                TomlFormat.instance().createParser().parse(configFilePath, fileContents, ParsingMode.REPLACE, FileNotFoundAction.READ_NOTHING);
+                fileReadable = true;
+            } catch (ParsingException e) {
+                fileReadable = false;
+                logger.error("Configuration parsing failed, couldn't save values to config file. Exception message: {}", e.getMessage(), e);
+                return false;
+            }
+
+            for (String propertyKey : snapshot.valueMap().keySet()) {
+                fileContents.set(propertyKey, snapshot.<Object>get(propertyKey));
+                fileContents.setComment(propertyKey, snapshot.getComment(propertyKey));
+            }
+
+            try {
+                TomlFormat.instance().createWriter().write(fileContents, tempFilePath, WritingMode.REPLACE);
+                try {
+                    Files.move(tempFilePath, configFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFilePath, configFilePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                writtenGeneration = generation;
+                return true;
+            } catch (IOException | WritingException e) {
+                logger.error("Failed to write the config file '{}'.", configFilePath, e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Creates an empty in-memory config that preserves insertion order, to be filled with config properties.
+     * @return The created config.
+     */
+    private CommentedConfig createSnapshot() {
+        return CommentedConfig.of(LinkedHashMap::new, TomlFormat.instance());
+    }
+
+    /**
+     * Loads the value of each property in the config file, to its annotated field in the config instance.
      * @param fileConfig The CommentedFileConfig created from the config file.
+     */
+    @SuppressWarnings("unchecked")
+    protected void loadAnnotatedProperties(CommentedFileConfig fileConfig) {
+        for (ConfigPropertyDescriptor property : properties) {
+            String propertyKey = property.key();
+            PropertyRange range = property.range();
+
+            if (range != null) {
+                loadIntegerProperty(fileConfig, propertyKey, value -> property.set(config, value), range.min(), range.max());
+            }
+            else if (property.type().isEnum()) {
+                loadEnumProperty(fileConfig, propertyKey, value -> property.set(config, value), (Class<Enum>) property.type());
+            }
+            else {
+                loadProperty(fileConfig, propertyKey, value -> property.set(config, value));
+            }
+        }
+    }
+
+    /**
+     * Writes the key, comment, and value of each annotated field in the config instance, to a config.
+     * @param fileConfig The config the properties are written to.
      * @return True if there were no errors, false otherwise.
      */
-    protected boolean writeAnnotatedProperties(CommentedFileConfig fileConfig) {
+    protected boolean writeAnnotatedProperties(CommentedConfig fileConfig) {
         T newConfigInstance = getDefaultConfig();
         boolean hasNoErrors = true;
         boolean firstField = true;
-        for (Field field : config.getClass().getDeclaredFields()) {
-            if (!field.isAnnotationPresent(ConfigProperty.class) || field.isAnnotationPresent(ServerExclusive.class) && !Terrastorage.environmentIsServer) {
-                continue;
-            }
-
-            if (field.trySetAccessible()) {
-                ConfigProperty property = field.getAnnotation(ConfigProperty.class);
-                String propertyKey = property.key();
-                Object fieldValue = getFieldValue(field, config, propertyKey);
-                if (fieldValue != null) {
-                    fileConfig.set(propertyKey, fieldValue);
-                    String propertyComment = property.comment();
-                    if (!firstField) {
-                        propertyComment = "==========\n" + propertyComment;
-                    }
-                    if (field.isAnnotationPresent(PropertyRange.class)) {
-                        PropertyRange range = field.getAnnotation(PropertyRange.class);
-                        propertyComment += "\nRange: " + range.min() + " to " + range.max() + ", inclusive";
-                    }
-                    propertyComment += "\nDefault: " + getFieldValue(field, newConfigInstance, propertyKey).toString();
-                    fileConfig.setComment(propertyKey, propertyComment);
+        for (ConfigPropertyDescriptor property : properties) {
+            String propertyKey = property.key();
+            Object fieldValue = property.get(config);
+            if (fieldValue != null) {
+                fileConfig.set(propertyKey, fieldValue);
+                String propertyComment = property.comment();
+                if (!firstField) {
+                    propertyComment = "==========\n" + propertyComment;
                 }
-                else if (hasNoErrors) {
-                    hasNoErrors = false;
+                PropertyRange range = property.range();
+                if (range != null) {
+                    propertyComment += "\nRange: " + range.min() + " to " + range.max() + ", inclusive";
                 }
+                propertyComment += "\nDefault: " + property.get(newConfigInstance).toString();
+                fileConfig.setComment(propertyKey, propertyComment);
             }
             else {
-                logger.error("Failed to set field '{}' as accessible.", field.getName());
-                if (hasNoErrors) {
-                    hasNoErrors = false;
-                }
+                logger.error("Configuration property '{}' has no value.", propertyKey);
+                hasNoErrors = false;
             }
 
-            if (firstField) {
-                firstField = false;
-            }
+            firstField = false;
         }
 
         return hasNoErrors;
     }
 
-    /**
-     * Gets the value of a field in a config instance.
-     * @param field The field.
-     * @param instance An instance of the config class containing the field.
-     * @param propertyKey The key of the field.
-     * @return The value of the field.
-     */
-    protected Object getFieldValue(Field field, T instance, String propertyKey) {
-        try {
-            return field.get(instance);
-        } catch (IllegalAccessException e) {
-            logger.error("Failed to get field value of configuration property '{}'.", propertyKey, e);
-            return null;
-        }
-    }
-
     /**
      * Loads a property from the config file to its field in the config instance.
      * @param fileConfig The CommentedFileConfig created from the config file.
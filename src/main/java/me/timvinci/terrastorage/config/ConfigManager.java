@@ -8,6 +8,11 @@ import me.timvinci.terrastorage.util.Reference;
  */
 public class ConfigManager extends BaseConfigManager<TerrastorageConfig> {
     private static ConfigManager instance;
+    // Replaced as a whole whenever the config changes, so readers on any thread see a consistent set of values.
+    private static volatile TerrastorageConfig.Snapshot snapshot = new TerrastorageConfig().snapshot();
+    // Whether item entities remove the favorite status of their stack, resolved whenever it can change so the
+    // ItemEntity.setStack hook costs a single read when it doesn't apply.
+    private static volatile boolean removeFavoritesOnDrop = false;
 
     public ConfigManager() {
         super(Reference.MOD_ID + ".toml", Terrastorage.LOGGER);
@@ -22,6 +27,53 @@ public class ConfigManager extends BaseConfigManager<TerrastorageConfig> {
         return instance;
     }
 
+    /**
+     * Gets the latest immutable snapshot of the server config properties.
+     * @return The snapshot.
+     */
+    public static TerrastorageConfig.Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Replaces the snapshot with one that doesn't come from the config instance, without changing the config instance
+     * or writing the config file. Used by the load tests to pin the properties they measure.
+     * @param override The snapshot to use until the override is cleared.
+     */
+    public static void overrideSnapshot(TerrastorageConfig.Snapshot override) {
+        snapshot = override;
+        updateRemoveFavoritesOnDrop();
+    }
+
+    /**
+     * Restores the snapshot of the config instance, after it was overridden.
+     */
+    public static void clearSnapshotOverride() {
+        instance.onConfigChanged();
+    }
+
+    /**
+     * Gets whether item entities should remove the favorite status of their item stack.
+     * @return True if item favoriting is enabled and favorites aren't kept on drop, false otherwise.
+     */
+    public static boolean shouldRemoveFavoritesOnDrop() {
+        return removeFavoritesOnDrop;
+    }
+
+    /**
+     * Resolves whether item entities should remove the favorite status of their item stack.
+     * Called whenever the config changes, and once item favoriting was initialized.
+     */
+    public static void updateRemoveFavoritesOnDrop() {
+        removeFavoritesOnDrop = Terrastorage.itemFavoritingEnabled && !snapshot.keepFavoritesOnDrop();
+    }
+
+    @Override
+    protected void onConfigChanged() {
+        snapshot = config.snapshot();
+        updateRemoveFavoritesOnDrop();
+    }
+
     @Override
     protected TerrastorageConfig getDefaultConfig() {
         return new TerrastorageConfig();
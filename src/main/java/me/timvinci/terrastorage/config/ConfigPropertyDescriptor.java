@@ -0,0 +1,169 @@
+package me.timvinci.terrastorage.config;
+
+import me.timvinci.terrastorage.Terrastorage;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Describes an annotated property of a config class, and provides method handle based access to its field.
+ * Descriptors are compiled once per config manager, so loading, saving and building the options screen don't have to
+ * rediscover the annotated fields through reflection.
+ */
+public final class ConfigPropertyDescriptor {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType NEXT_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final String key;
+    private final String comment;
+    private final Class<?> type;
+    @Nullable
+    private final PropertyRange range;
+    private final Set<Class<? extends Annotation>> annotationTypes;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    @Nullable
+    private final MethodHandle next;
+
+    private ConfigPropertyDescriptor(Field field, ConfigProperty property, MethodHandle getter, MethodHandle setter, @Nullable MethodHandle next) {
+        this.key = property.key();
+        this.comment = property.comment();
+        this.type = field.getType();
+        this.range = field.getAnnotation(PropertyRange.class);
+        Set<Class<? extends Annotation>> annotationTypes = new HashSet<>();
+        for (Annotation annotation : field.getAnnotations()) {
+            annotationTypes.add(annotation.annotationType());
+        }
+        this.annotationTypes = Collections.unmodifiableSet(annotationTypes);
+        this.getter = getter;
+        this.setter = setter;
+        this.next = next;
+    }
+
+    /**
+     * Compiles the descriptors of the annotated properties of a config class, in their declaration order.
+     * Server exclusive properties are left out when not running in a server environment.
+     * @param configClass The config class.
+     * @param logger The logger used to report fields that couldn't be bound.
+     * @return The descriptors of the config class.
+     */
+    public static List<ConfigPropertyDescriptor> compile(Class<?> configClass, Logger logger) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        List<ConfigPropertyDescriptor> descriptors = new ArrayList<>();
+
+        for (Field field : configClass.getDeclaredFields()) {
+            ConfigProperty property = field.getAnnotation(ConfigProperty.class);
+            if (property == null || field.isAnnotationPresent(ServerExclusive.class) && !Terrastorage.environmentIsServer) {
+                continue;
+            }
+
+            if (!field.trySetAccessible()) {
+                logger.error("Failed to set field '{}' as accessible.", field.getName());
+                continue;
+            }
+
+            try {
+                MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                descriptors.add(new ConfigPropertyDescriptor(field, property, getter, setter, findNext(lookup, field.getType())));
+            } catch (IllegalAccessException e) {
+                logger.error("Failed to bind field '{}' of configuration property '{}'.", field.getName(), property.key(), e);
+            }
+        }
+
+        return List.copyOf(descriptors);
+    }
+
+    /**
+     * Finds the static next method of an enum class, which is used to cycle through its constants.
+     * @param lookup The lookup used to find the method.
+     * @param type The type of the property.
+     * @return A handle to the next method, or null if the type isn't an enum or doesn't declare one.
+     */
+    @Nullable
+    private static MethodHandle findNext(MethodHandles.Lookup lookup, Class<?> type) {
+        if (!type.isEnum()) {
+            return null;
+        }
+
+        try {
+            return lookup.findStatic(type, "next", MethodType.methodType(type, type)).asType(NEXT_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    public String key() { return key; }
+
+    public String comment() { return comment; }
+
+    public Class<?> type() { return type; }
+
+    @Nullable
+    public PropertyRange range() { return range; }
+
+    public boolean hasAnnotation(Class<? extends Annotation> annotationType) { return annotationTypes.contains(annotationType); }
+
+    public boolean hasNext() { return next != null; }
+
+    /**
+     * Gets the value of the property in a config instance.
+     * @param instance The config instance.
+     * @return The value of the property.
+     */
+    public Object get(Object instance) {
+        try {
+            return (Object) getter.invokeExact(instance);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to get configuration property '" + key + "'.", e);
+        }
+    }
+
+    /**
+     * Sets the value of the property in a config instance.
+     * @param instance The config instance.
+     * @param value The new value.
+     * @throws ClassCastException If the value isn't of the property's type.
+     */
+    public void set(Object instance, Object value) {
+        try {
+            setter.invokeExact(instance, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to set configuration property '" + key + "'.", e);
+        }
+    }
+
+    /**
+     * Gets the enum constant that comes after the provided one, using the enum's next method.
+     * @param current The current constant.
+     * @return The next constant.
+     */
+    public Object next(Object current) {
+        if (next == null) {
+            throw new IllegalStateException("Configuration property '" + key + "' doesn't have a next method.");
+        }
+
+        try {
+            return (Object) next.invokeExact(current);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to get the next value of configuration property '" + key + "'.", e);
+        }
+    }
+}
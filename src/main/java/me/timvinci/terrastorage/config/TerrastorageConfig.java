@@ -1,5 +1,7 @@
 package me.timvinci.terrastorage.config;
 
+import me.timvinci.terrastorage.util.ScanShape;
+
 /**
  * Defines and holds the server config properties.
  */
@@ -12,6 +14,11 @@ public class TerrastorageConfig {
     @ConfigProperty(key = "quick_stack_range", comment = "The range of the Quick Stack to Nearby Storages feature, in blocks")
     @PropertyRange(min = 3, max = 48)
     private int quickStackRange = 8;
+    @ConfigProperty(key = "quick_stack_shape", comment = "The shape of the volume scanned by the Quick Stack To Nearby Storages feature: CUBE, SPHERE or CYLINDER")
+    private ScanShape quickStackShape = ScanShape.CUBE;
+    @ConfigProperty(key = "quick_stack_vertical_range", comment = "The distance above and below the player scanned by the Quick Stack To Nearby Storages feature when its shape is CYLINDER, in blocks")
+    @PropertyRange(min = 1, max = 48)
+    private int quickStackVerticalRange = 4;
     @ConfigProperty(key = "item_animation_length", comment = "The length of the flying item animation that occurs when Quick Stack To Nearby Storages is used, in game ticks")
     @PropertyRange(min = 0, max = 200)
     private int itemAnimationLength = 20;
@@ -23,6 +30,21 @@ public class TerrastorageConfig {
     private boolean enableItemFavoriting = true;
     @ConfigProperty(key = "keep_favorites_on_drop", comment = "Whether items will keep their favorite status once they are dropped as an item entity.")
     private boolean keepFavoritesOnDrop = true;
+    @ConfigProperty(key = "slow_action_threshold", comment = "The duration above which a storage action is logged along with a breakdown of where its time went, in milliseconds. Set to 0 to disable")
+    @PropertyRange(min = 0, max = 10000)
+    private int slowActionThreshold = 50;
+    @ConfigProperty(key = "shadow_check_interval", comment = "Every how many sort and deposit all actions the result is compared against the reference algorithms, and any difference logged. Set to 0 to disable")
+    @PropertyRange(min = 0, max = 10000)
+    private int shadowCheckInterval = 0;
+    @ConfigProperty(key = "state_building_threads", comment = "The amount of threads that scan nearby storages in parallel when Quick Stack To Nearby Storages is used. Set to 0 to scan them on the server thread")
+    @PropertyRange(min = 0, max = 8)
+    private int stateBuildingThreads = 0;
+    @ConfigProperty(key = "storage_catalog", comment = "Whether the server keeps a catalog of the contents of every storage, which Find Storages and Highlight Storages search. Storage groups also keep the catalog up to date, as it records who owns each group")
+    private boolean storageCatalog = false;
+    @ConfigProperty(key = "storage_groups", comment = "Whether Loot All, Quick Stack and Restock target every nearby storage in the storage group of the open storage. Storages are grouped by the part of their name before a colon")
+    private boolean storageGroups = false;
+    @ConfigProperty(key = "transfer_api_storages", comment = "Whether Quick Stack To Nearby Storages and Restock From Nearby Storages also reach modded storages that are only exposed through the Fabric Transfer API. Only storages with at least 27 slots, or in the terrastorage:transfer_api_storages block tag, are reached")
+    private boolean transferApiStorages = false;
 
     public int getActionCooldown() { return actionCooldown; }
 
@@ -36,6 +58,14 @@ public class TerrastorageConfig {
 
     public void setQuickStackRange(int quickStackRange) { this.quickStackRange = quickStackRange; }
 
+    public ScanShape getQuickStackShape() { return quickStackShape; }
+
+    public void setQuickStackShape(ScanShape quickStackShape) { this.quickStackShape = quickStackShape; }
+
+    public int getQuickStackVerticalRange() { return quickStackVerticalRange; }
+
+    public void setQuickStackVerticalRange(int quickStackVerticalRange) { this.quickStackVerticalRange = quickStackVerticalRange; }
+
     public int getItemAnimationLength() { return itemAnimationLength; }
 
     public void setItemAnimationLength(int itemAnimationLength) { this.itemAnimationLength = itemAnimationLength; }
@@ -51,4 +81,74 @@ public class TerrastorageConfig {
     public boolean getKeepFavoritesOnDrop() { return keepFavoritesOnDrop; }
 
     public void setKeepFavoritesOnDrop(boolean keepFavoritesOnDrop) { this.keepFavoritesOnDrop = keepFavoritesOnDrop; }
+
+    public int getSlowActionThreshold() { return slowActionThreshold; }
+
+    public void setSlowActionThreshold(int slowActionThreshold) { this.slowActionThreshold = slowActionThreshold; }
+
+    public int getShadowCheckInterval() { return shadowCheckInterval; }
+
+    public void setShadowCheckInterval(int shadowCheckInterval) { this.shadowCheckInterval = shadowCheckInterval; }
+
+    public int getStateBuildingThreads() { return stateBuildingThreads; }
+
+    public void setStateBuildingThreads(int stateBuildingThreads) { this.stateBuildingThreads = stateBuildingThreads; }
+
+    public boolean getStorageCatalog() { return storageCatalog; }
+
+    public void setStorageCatalog(boolean storageCatalog) { this.storageCatalog = storageCatalog; }
+
+    public boolean getStorageGroups() { return storageGroups; }
+
+    public void setStorageGroups(boolean storageGroups) { this.storageGroups = storageGroups; }
+
+    public boolean getTransferApiStorages() { return transferApiStorages; }
+
+    public void setTransferApiStorages(boolean transferApiStorages) { this.transferApiStorages = transferApiStorages; }
+
+    /**
+     * Creates an immutable snapshot of the current property values.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+                actionCooldown,
+                lineOfSightCheck,
+                quickStackRange,
+                quickStackShape,
+                quickStackVerticalRange,
+                itemAnimationLength,
+                itemAnimationInterval,
+                enableItemFavoriting,
+                keepFavoritesOnDrop,
+                slowActionThreshold,
+                shadowCheckInterval,
+                stateBuildingThreads,
+                storageCatalog,
+                storageGroups,
+                transferApiStorages
+        );
+    }
+
+    /**
+     * An immutable snapshot of the server config properties, read by hot paths instead of the mutable config instance.
+     * See ConfigManager.getSnapshot.
+     */
+    public record Snapshot(
+            int actionCooldown,
+            boolean lineOfSightCheck,
+            int quickStackRange,
+            ScanShape quickStackShape,
+            int quickStackVerticalRange,
+            int itemAnimationLength,
+            int itemAnimationInterval,
+            boolean enableItemFavoriting,
+            boolean keepFavoritesOnDrop,
+            int slowActionThreshold,
+            int shadowCheckInterval,
+            int stateBuildingThreads,
+            boolean storageCatalog,
+            boolean storageGroups,
+            boolean transferApiStorages
+    ) { }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package me.timvinci.terrastorage.inventory;
+
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import me.timvinci.terrastorage.mixin.DoubleInventoryAccessor;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.inventory.Inventory;
+
+/**
+ * Coalesces the dirty notifications of the storages modified by Terrastorage within a tick.
+ * Marking a block entity dirty updates the comparators around it right away, so a storage action over many storages,
+ * or several actions within a tick, would fire a burst of neighbor updates into any redstone nearby. Instead, the
+ * block entities are queued and each is marked dirty exactly once at the end of the tick.
+ */
+public class DirtyStorageQueue {
+    // Only accessed from the server thread.
+    private static final ReferenceLinkedOpenHashSet<BlockEntity> pendingStorages = new ReferenceLinkedOpenHashSet<>();
+
+    /**
+     * Marks a storage dirty at the end of the current tick.
+     * Storages that aren't block entities, and as such have no comparators to update, are marked dirty right away.
+     * @param storage The storage's inventory.
+     */
+    public static void markDirty(Inventory storage) {
+        if (storage instanceof DoubleInventoryAccessor accessor) {
+            markDirty(accessor.first());
+            markDirty(accessor.second());
+        }
+        else if (storage instanceof GroupInventory groupInventory) {
+            for (Inventory member : groupInventory.getMembers()) {
+                markDirty(member);
+            }
+        }
+        else if (storage instanceof BlockEntity blockEntity) {
+            pendingStorages.add(blockEntity);
+        }
+        else {
+            storage.markDirty();
+        }
+    }
+
+    /**
+     * Marks all the queued storages dirty, skipping those that were removed since they were queued.
+     */
+    public static void flush() {
+        if (pendingStorages.isEmpty()) {
+            return;
+        }
+
+        for (BlockEntity blockEntity : pendingStorages) {
+            if (!blockEntity.isRemoved()) {
+                blockEntity.markDirty();
+            }
+        }
+        pendingStorages.clear();
+    }
+}
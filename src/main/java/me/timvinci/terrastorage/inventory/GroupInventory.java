@@ -0,0 +1,124 @@
+package me.timvinci.terrastorage.inventory;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+
+import java.util.List;
+
+/**
+ * An inventory made of the inventories of the storages in a storage group, laid out one after the other, used for
+ * performing a storage action on the whole group as if it was a single storage.
+ */
+public class GroupInventory implements Inventory {
+    private final List<Inventory> members;
+    // The index of the first slot of each member, followed by the size of the group inventory.
+    private final int[] offsets;
+
+    public GroupInventory(List<Inventory> members) {
+        this.members = members;
+        this.offsets = new int[members.size() + 1];
+        for (int i = 0; i < members.size(); i++) {
+            offsets[i + 1] = offsets[i] + members.get(i).size();
+        }
+    }
+
+    /**
+     * Gets the inventories the group inventory is made of.
+     * @return The inventories, in order.
+     */
+    public List<Inventory> getMembers() {
+        return members;
+    }
+
+    /**
+     * Finds the index of the member holding a slot of the group inventory.
+     * @param slot The slot.
+     * @return The index of the member.
+     */
+    private int getMemberIndex(int slot) {
+        int low = 0;
+        int high = members.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= slot) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+
+        return low;
+    }
+
+    @Override
+    public int size() {
+        return offsets[members.size()];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Inventory member : members) {
+            if (!member.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public ItemStack getStack(int slot) {
+        int index = getMemberIndex(slot);
+        return members.get(index).getStack(slot - offsets[index]);
+    }
+
+    @Override
+    public ItemStack removeStack(int slot, int amount) {
+        int index = getMemberIndex(slot);
+        return members.get(index).removeStack(slot - offsets[index], amount);
+    }
+
+    @Override
+    public ItemStack removeStack(int slot) {
+        int index = getMemberIndex(slot);
+        return members.get(index).removeStack(slot - offsets[index]);
+    }
+
+    @Override
+    public void setStack(int slot, ItemStack stack) {
+        int index = getMemberIndex(slot);
+        members.get(index).setStack(slot - offsets[index], stack);
+    }
+
+    @Override
+    public int getMaxCountPerStack() {
+        return members.getFirst().getMaxCountPerStack();
+    }
+
+    @Override
+    public boolean isValid(int slot, ItemStack stack) {
+        int index = getMemberIndex(slot);
+        return members.get(index).isValid(slot - offsets[index], stack);
+    }
+
+    @Override
+    public void markDirty() {
+        for (Inventory member : members) {
+            member.markDirty();
+        }
+    }
+
+    @Override
+    public boolean canPlayerUse(PlayerEntity player) {
+        for (Inventory member : members) {
+            if (!member.canPlayerUse(player)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (Inventory member : members) {
+            member.clear();
+        }
+    }
+}
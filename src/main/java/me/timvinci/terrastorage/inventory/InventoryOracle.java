@@ -0,0 +1,153 @@
+package me.timvinci.terrastorage.inventory;
+
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.util.SortType;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the results of TransferPlan and of the sort algorithm of InventoryUtils against the reference
+ * implementations of ReferenceInventoryUtils.
+ * Both are run on copies of the same contents, so the compared inventories are never modified. Used by
+ * TerrastorageCore on a sample of the actions, as set by the shadow check interval, and by the game tests.
+ */
+public class InventoryOracle {
+    // Only accessed from the server thread.
+    private static int actionsSinceCheck = 0;
+
+    /**
+     * Checks whether the current action should be compared against the reference algorithms.
+     * @return True once every shadow check interval actions, false otherwise or if the interval is 0.
+     */
+    public static boolean shouldSample() {
+        int interval = ConfigManager.getSnapshot().shadowCheckInterval();
+        if (interval <= 0) {
+            return false;
+        }
+
+        if (++actionsSinceCheck < interval) {
+            return false;
+        }
+
+        actionsSinceCheck = 0;
+        return true;
+    }
+
+    /**
+     * Compares combineAndSortInventory against the reference implementation.
+     * @param inventory The inventory to sort, which is left unchanged.
+     * @param type The sorting type to use.
+     * @param startIndex The index at which item iteration starts.
+     * @param endIndex The index at which item iteration ends.
+     * @param ignoreFavorites Whether favorite stacks are left in place.
+     * @return A description of the first difference, or null if the results are identical.
+     */
+    public static @Nullable String compareSort(Inventory inventory, SortType type, int startIndex, int endIndex, boolean ignoreFavorites) {
+        SimpleInventory actualInventory = copyOf(inventory);
+        SimpleInventory expectedInventory = copyOf(inventory);
+
+        List<ItemStack> actual = InventoryUtils.combineAndSortInventory(actualInventory, type, startIndex, endIndex, ignoreFavorites);
+        List<ItemStack> expected = ReferenceInventoryUtils.combineAndSortInventory(expectedInventory, type, startIndex, endIndex, ignoreFavorites);
+
+        String difference = compareStacks("sorted stack", expected, actual);
+        if (difference != null) {
+            return "Sort by " + type.name() + ": " + difference;
+        }
+
+        // The stacks that were skipped must have been left in their slots.
+        difference = compareStacks("slot", expectedInventory.getHeldStacks(), actualInventory.getHeldStacks());
+        return difference == null ? null : "Sort by " + type.name() + ": " + difference;
+    }
+
+    /**
+     * Compares a TransferPlan of the stacks, using a CompleteInventoryState of the receiver, against the reference
+     * implementation.
+     * @param receiver The inventory that receives the stacks, which is left unchanged.
+     * @param stacks The stacks to transfer in order, which are left unchanged.
+     * @return A description of the first difference, or null if the results are identical.
+     */
+    public static @Nullable String compareTransfer(Inventory receiver, List<ItemStack> stacks) {
+        SimpleInventory actualReceiver = copyOf(receiver);
+        SimpleInventory expectedReceiver = copyOf(receiver);
+        List<ItemStack> actualStacks = copyOf(stacks);
+        List<ItemStack> expectedStacks = copyOf(stacks);
+
+        TerrastorageStats.setCounting(false);
+        try {
+            // Transfers go through a TransferPlan, like the storage actions do. The source inventory shares its
+            // stacks with the list.
+            SimpleInventory source = new SimpleInventory(actualStacks.toArray(ItemStack[]::new));
+            TransferPlan plan = new TransferPlan(source, actualReceiver, new CompleteInventoryState(actualReceiver));
+            for (int i = 0; i < source.size(); i++) {
+                if (!source.getStack(i).isEmpty()) {
+                    plan.planStack(i);
+                }
+            }
+            plan.apply();
+        }
+        finally {
+            TerrastorageStats.setCounting(true);
+        }
+
+        for (ItemStack stack : expectedStacks) {
+            ReferenceInventoryUtils.transferStack(expectedReceiver, stack);
+        }
+
+        String difference = compareStacks("receiver slot", expectedReceiver.getHeldStacks(), actualReceiver.getHeldStacks());
+        if (difference != null) {
+            return "Transfer: " + difference;
+        }
+
+        difference = compareStacks("remaining stack", expectedStacks, actualStacks);
+        return difference == null ? null : "Transfer: " + difference;
+    }
+
+    /**
+     * Compares two lists of stacks by item, count and components.
+     * @param name The name of a single element, used in the description.
+     * @param expected The stacks of the reference implementation.
+     * @param actual The stacks of the compared implementation.
+     * @return A description of the first difference, or null if the lists are identical.
+     */
+    private static @Nullable String compareStacks(String name, List<ItemStack> expected, List<ItemStack> actual) {
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (!ItemStack.areEqual(expected.get(i), actual.get(i))) {
+                return name + " " + i + " is " + describe(actual.get(i)) + ", expected " + describe(expected.get(i));
+            }
+        }
+
+        if (expected.size() != actual.size()) {
+            return "got " + actual.size() + " " + name + "s, expected " + expected.size();
+        }
+
+        return null;
+    }
+
+    private static String describe(ItemStack stack) {
+        return stack.isEmpty() ? "empty" : stack.getCount() + " " + stack.getItem() + " " + stack.getComponentChanges();
+    }
+
+    private static SimpleInventory copyOf(Inventory inventory) {
+        SimpleInventory copy = new SimpleInventory(inventory.size());
+        for (int i = 0; i < inventory.size(); i++) {
+            copy.setStack(i, inventory.getStack(i).copy());
+        }
+
+        return copy;
+    }
+
+    private static List<ItemStack> copyOf(List<ItemStack> stacks) {
+        List<ItemStack> copy = new ArrayList<>(stacks.size());
+        for (ItemStack stack : stacks) {
+            copy.add(stack.copy());
+        }
+
+        return copy;
+    }
+}
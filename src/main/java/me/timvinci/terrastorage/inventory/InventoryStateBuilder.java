@@ -0,0 +1,140 @@
+package me.timvinci.terrastorage.inventory;
+
+import me.timvinci.terrastorage.Terrastorage;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.mixin.DoubleInventoryAccessor;
+import net.minecraft.block.entity.BarrelBlockEntity;
+import net.minecraft.block.entity.ChestBlockEntity;
+import net.minecraft.block.entity.ShulkerBoxBlockEntity;
+import net.minecraft.block.entity.TrappedChestBlockEntity;
+import net.minecraft.inventory.Inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Builds the inventory states of the storages found by Quick Stack To Nearby Storages.
+ * Building a state only reads the storage, and the storages are distinct, so when the state building threads config
+ * property is set the states of vanilla storages are built in parallel on a bounded pool while the server thread
+ * waits. Storages added by other mods may do anything when read, so their states are built on the server thread. The
+ * transfers that use the states are still applied sequentially on the server thread.
+ */
+public class InventoryStateBuilder {
+    // Below this amount of storages, handing the work to the pool costs more than it saves.
+    private static final int MIN_PARALLEL_STORAGES = 8;
+    // Storages whose reads are plain array accesses. Matched exactly, since a subclass may override the reads.
+    private static final Set<Class<?>> PARALLEL_SAFE_CLASSES = Set.of(
+            ChestBlockEntity.class,
+            TrappedChestBlockEntity.class,
+            BarrelBlockEntity.class,
+            ShulkerBoxBlockEntity.class
+    );
+    // Only accessed from the server thread.
+    private static ForkJoinPool pool = null;
+
+    /**
+     * Builds the states of the given storages.
+     * @param storages The storages.
+     * @param stateFactory The factory of the states.
+     * @return The states, in the order of the storages.
+     */
+    public static List<InventoryState> buildStates(List<Inventory> storages, Function<Inventory, InventoryState> stateFactory) {
+        int threads = ConfigManager.getSnapshot().stateBuildingThreads();
+        if (threads == 0 || storages.size() < MIN_PARALLEL_STORAGES) {
+            return buildSequentially(storages, stateFactory);
+        }
+
+        InventoryState[] states = new InventoryState[storages.size()];
+        List<Callable<Void>> tasks = new ArrayList<>(storages.size());
+        for (int i = 0; i < storages.size(); i++) {
+            Inventory storage = storages.get(i);
+            // Reading a storage that has yet to generate its loot generates it, which must happen on the server thread.
+            if (!isParallelSafe(storage) || InventoryUtils.hasPendingLoot(storage)) {
+                states[i] = stateFactory.apply(storage);
+                continue;
+            }
+
+            int index = i;
+            tasks.add(() -> {
+                states[index] = stateFactory.apply(storage);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> future : getPool(threads).invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Terrastorage.LOGGER.warn("Failed to build the states of nearby storages in parallel, building them on the server thread.", e.getCause());
+            return buildSequentially(storages, stateFactory);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return buildSequentially(storages, stateFactory);
+        }
+
+        return List.of(states);
+    }
+
+    /**
+     * Shuts down the pool, if it was created.
+     */
+    public static void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Checks whether the given storage is a vanilla storage, or a double chest made of two, that can be read off the
+     * server thread.
+     * @param storage The storage.
+     * @return True if the state of the storage can be built in parallel, false otherwise.
+     */
+    private static boolean isParallelSafe(Inventory storage) {
+        if (storage instanceof DoubleInventoryAccessor accessor) {
+            return isParallelSafe(accessor.first()) && isParallelSafe(accessor.second());
+        }
+
+        return PARALLEL_SAFE_CLASSES.contains(storage.getClass());
+    }
+
+    private static List<InventoryState> buildSequentially(List<Inventory> storages, Function<Inventory, InventoryState> stateFactory) {
+        List<InventoryState> states = new ArrayList<>(storages.size());
+        for (Inventory storage : storages) {
+            states.add(stateFactory.apply(storage));
+        }
+
+        return states;
+    }
+
+    /**
+     * Gets the pool, recreating it if the state building threads config property was changed since it was created.
+     * @param threads The amount of threads of the pool.
+     * @return The pool.
+     */
+    private static ForkJoinPool getPool(int threads) {
+        if (pool != null && pool.getParallelism() == threads) {
+            return pool;
+        }
+
+        if (pool != null) {
+            pool.shutdown();
+        }
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("Terrastorage State Builder-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        return pool;
+    }
+}
@@ -3,12 +3,21 @@ package me.timvinci.terrastorage.inventory;
 import compasses.expandedstorage.api.EsChestType;
 import compasses.expandedstorage.api.ExpandedStorageAccessors;
 import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.config.TerrastorageConfig;
 import me.timvinci.terrastorage.item.GhostItemEntity;
 import me.timvinci.terrastorage.item.StackIdentifier;
 import me.timvinci.terrastorage.item.StackProcessor;
+import me.timvinci.terrastorage.mixin.DoubleInventoryAccessor;
+import me.timvinci.terrastorage.stats.LineOfSightEvent;
+import me.timvinci.terrastorage.stats.NearbyDiscoveryEvent;
+import me.timvinci.terrastorage.stats.OperationPhase;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
 import me.timvinci.terrastorage.util.ComparatorTypes;
 import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.util.ScanShape;
 import me.timvinci.terrastorage.util.SortType;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.ChestBlock;
 import net.minecraft.block.ShulkerBoxBlock;
@@ -19,14 +28,19 @@ import net.minecraft.block.enums.ChestType;
 import net.minecraft.component.ComponentType;
 import net.minecraft.component.MergedComponentMap;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.entity.vehicle.VehicleEntity;
+import net.minecraft.entity.vehicle.VehicleInventory;
 import net.minecraft.inventory.DoubleInventory;
 import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.LootableInventory;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.screen.slot.Slot;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
 import net.minecraft.util.Pair;
 import net.minecraft.util.TypeFilter;
 import net.minecraft.util.hit.BlockHitResult;
@@ -37,6 +51,7 @@ import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.RaycastContext;
 import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.function.Function;
@@ -67,6 +82,7 @@ public class InventoryUtils {
             int emptySlot = receiverState.getEmptySlots().poll();
             to.setStack(emptySlot, stack.copyAndEmpty());
             receiverState.setModified();
+            TerrastorageStats.countStackMoved(to.getStack(emptySlot).getCount());
             // Check if the stack that was transferred isn't full.
             if (stack.getCount() != stack.getMaxCount()) {
                 // Add this slot to the item slots of the receiver state.
@@ -107,6 +123,7 @@ public class InventoryUtils {
             existingStack.increment(transferAmount);
             stackToTransfer.decrement(transferAmount);
             receiverState.setModified();
+            TerrastorageStats.countStackMoved(transferAmount);
         }
 
         if (slotsWithItem.isEmpty()) {
@@ -138,10 +155,12 @@ public class InventoryUtils {
             if (shouldSkip.test(stack)) {
                 continue;
             }
+            // The stack is taken out of the inventory and moved into the combined list as is, rather than copied,
+            // which would deep copy its components.
+            inventory.setStack(i, ItemStack.EMPTY);
 
             if (stack.getMaxCount() <= 1 || stack.getCount() == stack.getMaxCount()) {
-                combinedStacks.add(stack.copy());
-                inventory.setStack(i, ItemStack.EMPTY);
+                combinedStacks.add(stack);
                 continue;
             }
 
@@ -149,25 +168,22 @@ public class InventoryUtils {
             ItemStack lastStack = lastStackMap.get(identifier);
 
             if (lastStack == null || lastStack.getCount() == stack.getMaxCount()) {
-                ItemStack newStack = stack.copy();
-                combinedStacks.add(newStack);
-                lastStackMap.put(identifier, newStack);
+                combinedStacks.add(stack);
+                lastStackMap.put(identifier, stack);
             }
             else {
                 int spaceLeft = lastStack.getMaxCount() - lastStack.getCount();
                 if (spaceLeft < stack.getCount()) {
+                    // Fill the last stack, and the rest of the stack becomes the new last stack.
                     lastStack.increment(spaceLeft);
-                    ItemStack newStack = stack.copy();
-                    newStack.setCount(stack.getCount() - spaceLeft);
-                    combinedStacks.add(newStack);
-                    lastStackMap.put(identifier, newStack);
+                    stack.decrement(spaceLeft);
+                    combinedStacks.add(stack);
+                    lastStackMap.put(identifier, stack);
                 }
                 else {
                     lastStack.increment(stack.getCount());
                 }
             }
-
-            inventory.setStack(i, ItemStack.EMPTY);
         }
 
         Comparator<ItemStack> comparator = switch (type) {
@@ -184,22 +200,90 @@ public class InventoryUtils {
     }
 
 
+    /**
+     * Gets the inventory of the storage whose screen the player currently has open.
+     * @param player The player.
+     * @return The storage's inventory, or a SlotBackedInventory of the non-player slots for "broken" screen handlers.
+     * Null if the storage is restricted, in which case the player is notified.
+     */
+    public static @Nullable Inventory getOpenStorageInventory(ServerPlayerEntity player) {
+        Slot firstSlot = player.currentScreenHandler.slots.getFirst();
+        if (firstSlot.inventory.size() != 0) {
+            if (!firstSlot.canTakeItems(player)) {
+                player.sendMessage(Text.translatable("terrastorage.message.restricted_inventory"));
+                return null;
+            }
+
+            // Get the storage's inventory from the player's screen handler.
+            return firstSlot.inventory;
+        }
+
+        // Handle "broken" screen handlers. The SlotBackedInventory is kept on the screen handler and reused by the
+        // actions performed through it, and is rebuilt if slots were added to or removed from the screen handler
+        // since it was created, as some modded screen handlers change their slots while open.
+        SlotBackedInventoryHolder holder = (SlotBackedInventoryHolder) player.currentScreenHandler;
+        SlotBackedInventory slotBackedInventory = holder.terrastorage$getSlotBackedInventory();
+        if (slotBackedInventory == null || slotBackedInventory.getScreenHandlerSlotCount() != player.currentScreenHandler.slots.size()) {
+            List<Slot> nonPlayerSlots = new ArrayList<>(player.currentScreenHandler.slots.size());
+            for (Slot slot : player.currentScreenHandler.slots) {
+                if (!(slot.inventory instanceof PlayerInventory)) {
+                    nonPlayerSlots.add(slot);
+                }
+            }
+
+            // Create a SlotBackedInventory, which will hold a reference to all slots and will make inventory
+            // adjustments using them.
+            slotBackedInventory = new SlotBackedInventory(nonPlayerSlots, player.currentScreenHandler.slots.size());
+            holder.terrastorage$setSlotBackedInventory(slotBackedInventory);
+        }
+
+        return slotBackedInventory;
+    }
+
     /**
      * Gets the storages that are nearby the player, as well as their position.
+     * The scanned volume is centered on the player, and shaped by the quick stack shape config property.
      * @param player The player.
      * @return A list consisting of pairs of inventories and their position.
      */
     public static List<Pair<Inventory, Vec3d>> getNearbyStorages(ServerPlayerEntity player) {
+        return getNearbyStorages(player, null);
+    }
+
+    /**
+     * Gets the storages that are nearby the player, as well as their position, optionally collecting the nearby
+     * storages that don't implement Inventory but expose an item storage through the Fabric Transfer API.
+     * The scanned volume is centered on the player, and shaped by the quick stack shape config property.
+     * @param player The player.
+     * @param transferStorages The list the nearby item storages and their position are added to, or null to leave them
+     *                         out.
+     * @return A list consisting of pairs of inventories and their position.
+     */
+    public static List<Pair<Inventory, Vec3d>> getNearbyStorages(ServerPlayerEntity player, @Nullable List<Pair<Storage<ItemVariant>, Vec3d>> transferStorages) {
+        NearbyDiscoveryEvent event = new NearbyDiscoveryEvent();
+        event.begin();
+        long discoveryStart = System.nanoTime();
+        // Line of sight checks are timed as their own phase, and excluded from the discovery phase.
+        long lineOfSightNanosBefore = TerrastorageStats.getPhaseNanos(OperationPhase.LINE_OF_SIGHT);
         World world = player.getWorld();
         List<Pair<Inventory, Vec3d>> nearbyStorages = new ArrayList<>();
         Set<BlockPos> processedChests = new HashSet<>();
 
-        // Getting the range, and whether the los check is enabled.
-        int range = ConfigManager.getInstance().getConfig().getQuickStackRange();
-        boolean performLosCheck = ConfigManager.getInstance().getConfig().getLineOfSightCheck();
+        // Getting the range and shape of the scanned volume, and whether the los check is enabled.
+        TerrastorageConfig.Snapshot config = ConfigManager.getSnapshot();
+        int range = config.quickStackRange();
+        ScanShape shape = config.quickStackShape();
+        int verticalRange = config.quickStackVerticalRange();
+        int verticalExtent = shape.getVerticalExtent(range, verticalRange);
+        boolean performLosCheck = config.lineOfSightCheck();
         BlockPos playerPos = player.getBlockPos();
+        int[] candidatePositions = new int[1];
 
-        BlockPos.iterateOutwards(playerPos, range, range, range).forEach(pos -> {
+        BlockPos.iterateOutwards(playerPos, range, verticalExtent, range).forEach(pos -> {
+            if (!shape.contains(pos.getX() - playerPos.getX(), pos.getY() - playerPos.getY(), pos.getZ() - playerPos.getZ(), range, verticalRange)) {
+                return;
+            }
+            candidatePositions[0]++;
             if (processedChests.contains(pos)) {
                 return;
             }
@@ -217,6 +301,7 @@ public class InventoryUtils {
 
                 Vec3d losPoint;
                 if (performLosCheck) {
+                    event.lineOfSightChecks++;
                     losPoint = hasLineOfSight(player, world, pos);
                     // Return if the player doesn't have line of sight to the block entity.
                     if (losPoint == Vec3d.ZERO) {
@@ -265,14 +350,36 @@ public class InventoryUtils {
                     nearbyStorages.add(new Pair<>(inventory, losPoint));
                 }
             }
+            else if (transferStorages != null && !(blockEntity instanceof Inventory) && blockEntity != null) {
+                Storage<ItemVariant> storage = TransferStorageUtils.find(world, pos, state, blockEntity);
+                if (storage == null) {
+                    return;
+                }
+
+                Vec3d losPoint;
+                if (performLosCheck) {
+                    event.lineOfSightChecks++;
+                    losPoint = hasLineOfSight(player, world, pos);
+                    if (losPoint == Vec3d.ZERO) {
+                        return;
+                    }
+                }
+                else {
+                    losPoint = pos.toCenterPos();
+                }
+
+                transferStorages.add(new Pair<>(storage, losPoint));
+            }
         });
 
-        Box searchBox = new Box(playerPos).expand(range);
+        Box searchBox = new Box(playerPos).expand(range, verticalExtent, range);
         world.getEntitiesByType(TypeFilter.instanceOf(VehicleEntity.class), searchBox, entity ->
-        entity instanceof Inventory inventory && inventory.size() >= 27)
+        entity instanceof Inventory inventory && inventory.size() >= 27 && shape.contains(
+                entity.getBlockX() - playerPos.getX(), entity.getBlockY() - playerPos.getY(), entity.getBlockZ() - playerPos.getZ(), range, verticalRange))
             .forEach(entity -> {
                 Vec3d losPoint;
                 if (performLosCheck) {
+                    event.lineOfSightChecks++;
                     losPoint = hasLineOfSightToEntity(player, world, entity);
                     if (losPoint == Vec3d.ZERO) {
                         return;
@@ -286,6 +393,19 @@ public class InventoryUtils {
             }
         );
 
+        long lineOfSightNanos = TerrastorageStats.getPhaseNanos(OperationPhase.LINE_OF_SIGHT) - lineOfSightNanosBefore;
+        TerrastorageStats.addPhaseNanos(OperationPhase.DISCOVERY, System.nanoTime() - discoveryStart - lineOfSightNanos);
+        TerrastorageStats.noteRange(range);
+
+        if (event.shouldCommit()) {
+            event.player = player.getGameProfile().getName();
+            event.range = range;
+            event.lineOfSightCheck = performLosCheck;
+            event.shape = shape.name();
+            event.candidatePositions = candidatePositions[0];
+            event.storagesAccepted = nearbyStorages.size() + (transferStorages != null ? transferStorages.size() : 0);
+            event.commit();
+        }
         return nearbyStorages;
     }
 
@@ -320,7 +440,10 @@ public class InventoryUtils {
      * @param pos The block position of the block entity
      * @return The point that the player has line of sight to, or Vec3d.ZERO if the player doesn't have line of sight.
      */
-    private static Vec3d hasLineOfSight(ServerPlayerEntity player, World world, BlockPos pos) {
+    public static Vec3d hasLineOfSight(ServerPlayerEntity player, World world, BlockPos pos) {
+        LineOfSightEvent event = new LineOfSightEvent();
+        event.begin();
+        long start = System.nanoTime();
         Vec3d playerEyes = player.getEyePos();
         Vec3d centerPos = pos.toCenterPos();
 
@@ -332,14 +455,17 @@ public class InventoryUtils {
         };
 
         for (Vec3d end : pointsToCheck) {
+            event.raycasts++;
             RaycastContext context = new RaycastContext(playerEyes, end, RaycastContext.ShapeType.OUTLINE, RaycastContext.FluidHandling.NONE, player);
             BlockHitResult hitResult = world.raycast(context);
 
             if (hitResult.getBlockPos().equals(pos) || hitResult.getType() == HitResult.Type.MISS) {
+                endLineOfSightCheck(event, start, centerPos, true);
                 return end;
             }
         }
 
+        endLineOfSightCheck(event, start, centerPos, false);
         return Vec3d.ZERO;
     }
 
@@ -351,6 +477,9 @@ public class InventoryUtils {
      * @return The center of the entity, or Vec3d.ZERO if the player doesn't have line of sight.
      */
     private static Vec3d hasLineOfSightToEntity(ServerPlayerEntity player, World world, Entity entity) {
+        LineOfSightEvent event = new LineOfSightEvent();
+        event.begin();
+        long start = System.nanoTime();
         Vec3d playerEyes = player.getEyePos();
         Vec3d end = entity.getBoundingBox().getCenter();
 
@@ -361,7 +490,28 @@ public class InventoryUtils {
                 player
         ));
 
-        return result.getType() == HitResult.Type.MISS ? end : Vec3d.ZERO;
+        boolean visible = result.getType() == HitResult.Type.MISS;
+        event.raycasts = 1;
+        endLineOfSightCheck(event, start, end, visible);
+        return visible ? end : Vec3d.ZERO;
+    }
+
+    /**
+     * Adds the time of a line of sight check to the current operation, and commits its flight recorder event.
+     * @param event The event of the check.
+     * @param startNanos The System.nanoTime value at the start of the check.
+     * @param target The point that was checked.
+     * @param visible Whether the player has line of sight to the point.
+     */
+    private static void endLineOfSightCheck(LineOfSightEvent event, long startNanos, Vec3d target, boolean visible) {
+        TerrastorageStats.endPhase(OperationPhase.LINE_OF_SIGHT, startNanos);
+        if (event.shouldCommit()) {
+            event.x = target.x;
+            event.y = target.y;
+            event.z = target.z;
+            event.visible = visible;
+            event.commit();
+        }
     }
 
     /**
@@ -371,7 +521,7 @@ public class InventoryUtils {
      * @param animationMap An animation map consisting of target positions and lists of items.
      */
     public static void triggerFlyOutAnimation(ServerWorld world, Vec3d playerEyes, int itemAnimationLength, Map<Vec3d, ArrayList<Item>> animationMap) {
-        int itemAnimationInterval = ConfigManager.getInstance().getConfig().getItemAnimationInterval();
+        int itemAnimationInterval = ConfigManager.getSnapshot().itemAnimationInterval();
 
         for (Map.Entry<Vec3d, ArrayList<Item>> entry : animationMap.entrySet()) {
             Vec3d targetPos = entry.getKey();
@@ -479,6 +629,26 @@ public class InventoryUtils {
     }
 
 
+    /**
+     * Checks whether reading an inventory would generate its loot, as is the case with a storage whose loot table was
+     * yet to be rolled.
+     * @param inventory The inventory.
+     * @return True if the inventory, or one of the halves of a double inventory, has a pending loot table.
+     */
+    public static boolean hasPendingLoot(Inventory inventory) {
+        if (inventory instanceof DoubleInventoryAccessor accessor) {
+            return hasPendingLoot(accessor.first()) || hasPendingLoot(accessor.second());
+        }
+        if (inventory instanceof LootableInventory lootable) {
+            return lootable.getLootTable() != null;
+        }
+        if (inventory instanceof VehicleInventory vehicle) {
+            return vehicle.getLootTable() != null;
+        }
+
+        return false;
+    }
+
     /**
      * Creates an InventoryState factory to be used by the TerrastorageCore;quickStackToNearbyStorages method.
      * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'
@@ -0,0 +1,109 @@
+package me.timvinci.terrastorage.inventory;
+
+import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.item.StackIdentifier;
+import me.timvinci.terrastorage.util.ComparatorTypes;
+import me.timvinci.terrastorage.util.SortType;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Reference implementations of the transfer and sort algorithms of InventoryUtils, used by InventoryOracle to verify
+ * that optimized implementations move items identically.
+ * These are kept deliberately simple, and must not be optimized.
+ */
+public class ReferenceInventoryUtils {
+
+    /**
+     * Transfers a stack to an inventory, first into the non-full stacks of the same item and components in slot
+     * order, then into the first empty slot. A favorite stack is only merged with favorite stacks, as is the case with
+     * the StackIdentifier keys of an InventoryState.
+     * Scans the inventory instead of relying on an InventoryState, so it serves as a reference for transferStack
+     * with a CompleteInventoryState of a non-player inventory.
+     * @param to The inventory that receives the transferred stack.
+     * @param stack The stack to transfer.
+     */
+    public static void transferStack(Inventory to, ItemStack stack) {
+        for (int i = 0; i < to.size() && !stack.isEmpty(); i++) {
+            ItemStack existingStack = to.getStack(i);
+            if (existingStack.isEmpty() || existingStack.getCount() >= existingStack.getMaxCount() ||
+                    !ItemStack.areItemsAndComponentsEqual(existingStack, stack)) {
+                continue;
+            }
+
+            int transferAmount = Math.min(existingStack.getMaxCount() - existingStack.getCount(), stack.getCount());
+            existingStack.increment(transferAmount);
+            stack.decrement(transferAmount);
+        }
+
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < to.size(); i++) {
+            if (to.getStack(i).isEmpty()) {
+                to.setStack(i, stack.copyAndEmpty());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Combines items from an inventory into a single list of items before sorting them.
+     * Stacks are combined in slot order into the last stack of the same item and components, and the combined list is
+     * stable sorted, which fixes the order of equal stacks.
+     * @param inventory The inventory to sort.
+     * @param type The sorting type to use.
+     * @param startIndex The index at which item iteration starts.
+     * @param endIndex The index at which item iteration ends.
+     * @param ignoreFavorites Whether favorite stacks are left in place.
+     * @return A sorted list of items.
+     */
+    public static List<ItemStack> combineAndSortInventory(Inventory inventory, SortType type, int startIndex, int endIndex, boolean ignoreFavorites) {
+        List<ItemStack> combinedStacks = new ArrayList<>();
+        Map<StackIdentifier, ItemStack> lastStackMap = new HashMap<>();
+        Predicate<ItemStack> shouldSkip = ignoreFavorites ?
+                stack -> stack.isEmpty() || ItemFavoritingUtils.isFavorite(stack) :
+                ItemStack::isEmpty;
+
+        for (int i = startIndex; i < endIndex; i++) {
+            ItemStack stack = inventory.getStack(i);
+            if (shouldSkip.test(stack)) {
+                continue;
+            }
+            inventory.setStack(i, ItemStack.EMPTY);
+
+            if (stack.getMaxCount() <= 1 || stack.getCount() == stack.getMaxCount()) {
+                combinedStacks.add(stack.copy());
+                continue;
+            }
+
+            StackIdentifier identifier = new StackIdentifier(stack);
+            ItemStack lastStack = lastStackMap.get(identifier);
+            int remaining = stack.getCount();
+            if (lastStack != null) {
+                int transferAmount = Math.min(lastStack.getMaxCount() - lastStack.getCount(), remaining);
+                lastStack.increment(transferAmount);
+                remaining -= transferAmount;
+            }
+
+            if (remaining > 0) {
+                ItemStack newStack = stack.copyWithCount(remaining);
+                combinedStacks.add(newStack);
+                lastStackMap.put(identifier, newStack);
+            }
+        }
+
+        combinedStacks.sort(switch (type) {
+            case ITEM_GROUP -> ComparatorTypes.BY_GROUP;
+            case ITEM_COUNT -> ComparatorTypes.BY_COUNT;
+            case ITEM_RARITY -> ComparatorTypes.BY_RARITY;
+            case ITEM_NAME -> ComparatorTypes.BY_NAME;
+            case ITEM_ID -> ComparatorTypes.BY_ID;
+        });
+        return combinedStacks;
+    }
+}
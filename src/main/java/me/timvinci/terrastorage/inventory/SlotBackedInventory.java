@@ -1,20 +1,47 @@
 package me.timvinci.terrastorage.inventory;
 
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.screen.slot.Slot;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A slot backed inventory, used for creating a working Inventory object from "broken" screen handlers.
  */
 public class SlotBackedInventory implements Inventory {
     private final List<Slot> slots;
+    // The amount of slots the screen handler had when the inventory was created from it, player slots included.
+    private final int screenHandlerSlotCount;
+    // The slots notified when the inventory is marked dirty, one per slot class and backing inventory for slots backed by
+    // a real inventory, and every other slot.
+    private final List<Slot> dirtySlots = new ArrayList<>();
 
-    public SlotBackedInventory(List<Slot> slots) {
+    public SlotBackedInventory(List<Slot> slots, int screenHandlerSlotCount) {
         this.slots = slots;
+        this.screenHandlerSlotCount = screenHandlerSlotCount;
+
+        // Marking a slot dirty marks its backing inventory dirty, so a notification per slot would repeat the same
+        // one for every slot of the inventory. Slots of different classes are kept apart, as they may mark it dirty
+        // differently. Slots backed by an empty inventory, usually a shared placeholder, often override markDirty to
+        // notify their real storage themselves, so each of them is notified.
+        Map<Class<?>, Set<Inventory>> notifiedInventories = new HashMap<>();
+        for (Slot slot : slots) {
+            if (slot.inventory.size() == 0 ||
+                    notifiedInventories.computeIfAbsent(slot.getClass(), k -> new ReferenceOpenHashSet<>()).add(slot.inventory)) {
+                dirtySlots.add(slot);
+            }
+        }
+    }
+
+    public int getScreenHandlerSlotCount() {
+        return screenHandlerSlotCount;
     }
 
     @Override
@@ -59,7 +86,7 @@ public class SlotBackedInventory implements Inventory {
 
     @Override
     public void markDirty() {
-        for (Slot slot : slots) {
+        for (Slot slot : dirtySlots) {
             slot.markDirty();
         }
     }
@@ -0,0 +1,13 @@
+package me.timvinci.terrastorage.inventory;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by every ScreenHandler through ScreenHandlerMixin, to keep the SlotBackedInventory of a "broken" screen
+ * handler on the screen handler itself, so it lives exactly as long as the screen handler does.
+ */
+public interface SlotBackedInventoryHolder {
+    @Nullable SlotBackedInventory terrastorage$getSlotBackedInventory();
+
+    void terrastorage$setSlotBackedInventory(SlotBackedInventory slotBackedInventory);
+}
@@ -0,0 +1,182 @@
+package me.timvinci.terrastorage.inventory;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import me.timvinci.terrastorage.item.StackIdentifier;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A plan of the stack transfers from one inventory to another, made of operations that each move a count of items from
+ * a slot of the source inventory to a slot of the receiver inventory.
+ * Planning follows the same placement rules as InventoryUtils.transferStack and InventoryUtils.transferToExistingStack,
+ * and keeps the receiver's InventoryState up to date, but leaves both inventories untouched. The plan is then applied
+ * in a single pass, or discarded, which makes it usable as a preview of a storage action.
+ */
+public class TransferPlan {
+    private final Inventory from;
+    private final Inventory to;
+    private final InventoryState receiverState;
+    // The source slot, receiver slot and count of each operation, in order.
+    private final IntArrayList operations = new IntArrayList();
+    // The planned count and max count of each receiver slot, or -1 for slots that no operation has touched yet.
+    private final int[] plannedCounts;
+    private final int[] plannedMaxCounts;
+    private int itemCount = 0;
+
+    /**
+     * Creates an empty plan.
+     * @param from The inventory the stacks are transferred from.
+     * @param to The inventory that receives the stacks.
+     * @param receiverState An InventoryState object of the receiver inventory, which the plan keeps up to date.
+     */
+    public TransferPlan(Inventory from, Inventory to, InventoryState receiverState) {
+        this.from = from;
+        this.to = to;
+        this.receiverState = receiverState;
+        this.plannedCounts = new int[to.size()];
+        this.plannedMaxCounts = new int[to.size()];
+        Arrays.fill(plannedCounts, -1);
+    }
+
+    /**
+     * Plans the transfer of a stack, first to existing stacks of the same item in the receiver, and then to an empty
+     * slot of the receiver. The receiver state must track empty slots.
+     * @param sourceSlot The slot of the stack in the source inventory.
+     */
+    public void planStack(int sourceSlot) {
+        ItemStack stack = from.getStack(sourceSlot);
+        StackIdentifier stackIdentifier = new StackIdentifier(stack);
+        int remaining = stack.getCount();
+        if (receiverState.getNonFullItemSlots().containsKey(stackIdentifier)) {
+            remaining = planToExistingStacks(sourceSlot, stackIdentifier, remaining);
+        }
+
+        if (remaining == 0 || receiverState.getEmptySlots().isEmpty()) {
+            return;
+        }
+
+        int emptySlot = receiverState.getEmptySlots().poll();
+        addOperation(sourceSlot, emptySlot, remaining);
+        plannedCounts[emptySlot] = remaining;
+        plannedMaxCounts[emptySlot] = stack.getMaxCount();
+        if (remaining != stack.getMaxCount()) {
+            receiverState.getNonFullItemSlots().computeIfAbsent(stackIdentifier, k -> new ArrayList<>()).add(emptySlot);
+        }
+    }
+
+    /**
+     * Plans the transfer of a stack to existing non-full stacks of the same item in the receiver only.
+     * @param sourceSlot The slot of the stack in the source inventory.
+     * @return True if the entire stack is transferred, false otherwise.
+     */
+    public boolean planToExistingStacks(int sourceSlot) {
+        ItemStack stack = from.getStack(sourceSlot);
+        StackIdentifier stackIdentifier = new StackIdentifier(stack);
+        if (!receiverState.getNonFullItemSlots().containsKey(stackIdentifier)) {
+            return false;
+        }
+
+        return planToExistingStacks(sourceSlot, stackIdentifier, stack.getCount()) == 0;
+    }
+
+    private int planToExistingStacks(int sourceSlot, StackIdentifier stackIdentifier, int remaining) {
+        ArrayList<Integer> slotsWithItem = receiverState.getNonFullItemSlots().get(stackIdentifier);
+        Iterator<Integer> slotsIterator = slotsWithItem.iterator();
+        while (slotsIterator.hasNext() && remaining > 0) {
+            int slotWithItem = slotsIterator.next();
+            if (plannedCounts[slotWithItem] == -1) {
+                ItemStack existingStack = to.getStack(slotWithItem);
+                plannedCounts[slotWithItem] = existingStack.getCount();
+                plannedMaxCounts[slotWithItem] = existingStack.getMaxCount();
+            }
+
+            int spaceLeft = plannedMaxCounts[slotWithItem] - plannedCounts[slotWithItem];
+            int transferAmount;
+            if (spaceLeft <= remaining) {
+                transferAmount = spaceLeft;
+                slotsIterator.remove();
+            }
+            else {
+                transferAmount = remaining;
+            }
+
+            if (transferAmount > 0) {
+                addOperation(sourceSlot, slotWithItem, transferAmount);
+                plannedCounts[slotWithItem] += transferAmount;
+                remaining -= transferAmount;
+            }
+        }
+
+        if (slotsWithItem.isEmpty()) {
+            receiverState.getNonFullItemSlots().remove(stackIdentifier);
+        }
+        return remaining;
+    }
+
+    private void addOperation(int sourceSlot, int receiverSlot, int count) {
+        operations.add(sourceSlot);
+        operations.add(receiverSlot);
+        operations.add(count);
+        itemCount += count;
+        receiverState.setModified();
+    }
+
+    /**
+     * @return The amount of operations in the plan.
+     */
+    public int size() {
+        return operations.size() / 3;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int getSourceSlot(int operation) {
+        return operations.getInt(operation * 3);
+    }
+
+    public int getReceiverSlot(int operation) {
+        return operations.getInt(operation * 3 + 1);
+    }
+
+    public int getCount(int operation) {
+        return operations.getInt(operation * 3 + 2);
+    }
+
+    /**
+     * @return The total count of items the plan moves.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Applies the operations of the plan to the inventories, in order. Neither inventory is marked dirty, which is left
+     * to the caller.
+     * @return True if any items were moved, false otherwise.
+     */
+    public boolean apply() {
+        for (int i = 0; i < operations.size(); i += 3) {
+            ItemStack sourceStack = from.getStack(operations.getInt(i));
+            int receiverSlot = operations.getInt(i + 1);
+            int count = operations.getInt(i + 2);
+            ItemStack receiverStack = to.getStack(receiverSlot);
+            if (receiverStack.isEmpty()) {
+                to.setStack(receiverSlot, sourceStack.split(count));
+            }
+            else {
+                receiverStack.increment(count);
+                sourceStack.decrement(count);
+            }
+            TerrastorageStats.countStackMoved(count);
+        }
+
+        return !operations.isEmpty();
+    }
+}
@@ -0,0 +1,217 @@
+package me.timvinci.terrastorage.inventory;
+
+import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.stats.OperationPhase;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.util.Reference;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.SlottedStorage;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.storage.StorageView;
+import net.fabricmc.fabric.api.transfer.v1.storage.base.SingleSlotStorage;
+import net.fabricmc.fabric.api.transfer.v1.transaction.Transaction;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Utility class for performing storage actions on storages exposed through the Fabric Transfer API, for modded
+ * storages that don't implement Inventory, like drawers.
+ * The storage side of an action is carried out within a single transaction, letting the storage use its own
+ * aggregated fast paths, and the player's stacks are only changed once the transaction is committed, so a storage
+ * that fails midway leaves both sides untouched.
+ * Only item storages that look like real storage are reached, so machines, pipes and network interfaces that also
+ * expose an item storage aren't filled or emptied by nearby actions.
+ */
+public class TransferStorageUtils {
+    // Blocks whose item storage is always reached, whatever its size, for storages that expose a few large slots or no
+    // slots at all, like drawers. Empty by default, and filled through datapacks.
+    public static final TagKey<Block> STORAGES_TAG = TagKey.of(RegistryKeys.BLOCK, Identifier.of(Reference.MOD_ID, "transfer_api_storages"));
+    // The minimum amount of slots of an untagged item storage, the same as the minimum size of a nearby inventory.
+    private static final int MIN_SLOT_COUNT = 27;
+
+    /**
+     * Finds the item storage exposed by a block, from any side, if it looks like real storage. That is the case for
+     * blocks in the transfer API storages tag, and for item storages that expose at least as many slots as a single
+     * chest has.
+     * @param world The world of the block.
+     * @param pos The position of the block.
+     * @param state The state of the block.
+     * @param blockEntity The block entity of the block.
+     * @return The item storage, or null if the block doesn't expose one, or exposes one that isn't storage.
+     */
+    public static @Nullable Storage<ItemVariant> find(World world, BlockPos pos, BlockState state, BlockEntity blockEntity) {
+        Storage<ItemVariant> storage = ItemStorage.SIDED.find(world, pos, state, blockEntity, null);
+        if (storage == null || state.isIn(STORAGES_TAG)) {
+            return storage;
+        }
+
+        return storage instanceof SlottedStorage<ItemVariant> slottedStorage && slottedStorage.getSlotCount() >= MIN_SLOT_COUNT ?
+                storage : null;
+    }
+
+    /**
+     * Performs a quick stack operation on an item storage.
+     * Items are first inserted into the non-full slots already holding them, when the storage exposes its slots, and
+     * then into the storage as a whole, which is how aggregated storages are filled. The storage as a whole is only
+     * used in smart deposit mode for storages that expose their slots, as it may also fill empty slots.
+     * @param playerInventory The player's inventory.
+     * @param storage The item storage.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     * @param onMoved Called with the item of each player stack that was moved, fully or partially.
+     * @return True if items were moved, false otherwise.
+     */
+    public static boolean quickStack(PlayerInventory playerInventory, Storage<ItemVariant> storage, boolean hotbarProtection, boolean smartDepositMode, Consumer<Item> onMoved) {
+        long phaseStart = System.nanoTime();
+        // The targets of each item held by the storage, in insertion order.
+        Map<ItemVariant, List<Storage<ItemVariant>>> targets = new HashMap<>();
+        for (StorageView<ItemVariant> view : storage.nonEmptyViews()) {
+            List<Storage<ItemVariant>> itemTargets = targets.computeIfAbsent(view.getResource(), k -> new ArrayList<>());
+            if (view instanceof SingleSlotStorage<ItemVariant> slot) {
+                if (slot.getAmount() < slot.getCapacity()) {
+                    itemTargets.add(slot);
+                }
+            }
+            else if (!itemTargets.contains(storage)) {
+                itemTargets.add(storage);
+            }
+        }
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+        if (targets.isEmpty()) {
+            return false;
+        }
+
+        phaseStart = System.nanoTime();
+        int mainSize = playerInventory.getMainStacks().size();
+        int startIndex = hotbarProtection ? PlayerInventory.getHotbarSize() : 0;
+        TerrastorageStats.countSlots(mainSize - startIndex);
+        long[] movedAmounts = new long[mainSize];
+        try (Transaction transaction = Transaction.openOuter()) {
+            for (int i = startIndex; i < mainSize; i++) {
+                ItemStack playerStack = playerInventory.getStack(i);
+                if (playerStack.isEmpty() || ItemFavoritingUtils.isFavorite(playerStack)) {
+                    continue;
+                }
+
+                ItemVariant variant = ItemVariant.of(playerStack);
+                List<Storage<ItemVariant>> itemTargets = targets.get(variant);
+                if (itemTargets == null) {
+                    continue;
+                }
+
+                long remaining = playerStack.getCount();
+                for (Storage<ItemVariant> target : itemTargets) {
+                    remaining -= target.insert(variant, remaining, transaction);
+                    if (remaining == 0) {
+                        break;
+                    }
+                }
+                if (smartDepositMode && remaining > 0 && !itemTargets.contains(storage)) {
+                    remaining -= storage.insert(variant, remaining, transaction);
+                }
+
+                movedAmounts[i] = playerStack.getCount() - remaining;
+            }
+
+            transaction.commit();
+        }
+
+        boolean modified = false;
+        for (int i = startIndex; i < mainSize; i++) {
+            if (movedAmounts[i] == 0) {
+                continue;
+            }
+
+            ItemStack playerStack = playerInventory.getStack(i);
+            onMoved.accept(playerStack.getItem());
+            playerStack.decrement((int) movedAmounts[i]);
+            TerrastorageStats.countStackMoved((int) movedAmounts[i]);
+            modified = true;
+        }
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
+
+        return modified;
+    }
+
+    /**
+     * Restocks the player's non-full stacks from an item storage, in the same slot order as a CompactInventoryState.
+     * The player's inventory is marked dirty if items were moved.
+     * @param playerInventory The player's inventory.
+     * @param storage The item storage.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @return True if the player still has non-full stacks after the restock, false otherwise.
+     */
+    public static boolean restock(PlayerInventory playerInventory, Storage<ItemVariant> storage, boolean hotbarProtection) {
+        long phaseStart = System.nanoTime();
+        int mainSize = playerInventory.getMainStacks().size();
+        int slotCount = hotbarProtection ? mainSize - PlayerInventory.getHotbarSize() : mainSize;
+        TerrastorageStats.countSlots(slotCount);
+        long[] movedAmounts = new long[mainSize];
+        boolean nonFullStacksRemain = false;
+        try (Transaction transaction = Transaction.openOuter()) {
+            for (int s = 0; s < slotCount; s++) {
+                // The main inventory before the hotbar.
+                int slot = (s + PlayerInventory.getHotbarSize()) % mainSize;
+                ItemStack playerStack = playerInventory.getStack(slot);
+                if (playerStack.isEmpty() || playerStack.getCount() == playerStack.getMaxCount()) {
+                    continue;
+                }
+
+                int missingCount = playerStack.getMaxCount() - playerStack.getCount();
+                movedAmounts[slot] = storage.extract(getRestockVariant(playerStack), missingCount, transaction);
+                nonFullStacksRemain |= movedAmounts[slot] < missingCount;
+            }
+
+            transaction.commit();
+        }
+
+        boolean modified = false;
+        for (int i = 0; i < mainSize; i++) {
+            if (movedAmounts[i] == 0) {
+                continue;
+            }
+
+            playerInventory.getStack(i).increment((int) movedAmounts[i]);
+            TerrastorageStats.countStackMoved((int) movedAmounts[i]);
+            modified = true;
+        }
+        if (modified) {
+            playerInventory.markDirty();
+        }
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
+
+        return nonFullStacksRemain;
+    }
+
+    /**
+     * Gets the variant restocked into a player stack, which leaves out the favorite status of the stack.
+     * @param playerStack The player stack.
+     * @return The variant.
+     */
+    private static ItemVariant getRestockVariant(ItemStack playerStack) {
+        if (!ItemFavoritingUtils.isFavorite(playerStack)) {
+            return ItemVariant.of(playerStack);
+        }
+
+        ItemStack unFavoriteStack = playerStack.copyWithCount(1);
+        unFavoriteStack.remove(ItemFavoritingUtils.FAVORITE);
+        return ItemVariant.of(unFavoriteStack);
+    }
+}
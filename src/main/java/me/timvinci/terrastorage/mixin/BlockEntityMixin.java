@@ -4,19 +4,24 @@ import com.google.gson.JsonElement;
 import com.llamalad7.mixinextras.injector.ModifyReturnValue;
 import com.mojang.serialization.JsonOps;
 
+import me.timvinci.terrastorage.catalog.StorageCatalog;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.block.entity.LockableContainerBlockEntity;
+import net.minecraft.inventory.Inventory;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.RegistryWrapper;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.text.TextCodecs;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 /**
  * A mixin of the BlockEntity class, used for adding the custom name of lockable container block entities to
- * their initial chunk data.
+ * their initial chunk data, and for keeping the storage catalog up to date.
  */
 @Mixin(BlockEntity.class)
 public abstract class BlockEntityMixin {
@@ -36,4 +41,29 @@ public abstract class BlockEntityMixin {
 
         return original;
     }
+
+    /**
+     * Queue the storage to be re-indexed by the storage catalog once its contents change.
+     */
+    @Inject(method = "markDirty()V", at = @At("HEAD"))
+    private void markDirty(CallbackInfo ci) {
+        markStorageStale();
+    }
+
+    /**
+     * Queue the storage to be re-indexed by the storage catalog once it's removed, which drops it from the catalog
+     * unless it was only unloaded.
+     */
+    @Inject(method = "markRemoved", at = @At("HEAD"))
+    private void markRemoved(CallbackInfo ci) {
+        markStorageStale();
+    }
+
+    private void markStorageStale() {
+        BlockEntity blockEntity = (BlockEntity) (Object) this;
+        if (blockEntity instanceof Inventory && StorageCatalog.isIndexing() && blockEntity.getWorld() instanceof ServerWorld serverWorld &&
+                serverWorld.getServer().isOnThread()) {
+            StorageCatalog.markStale(serverWorld, blockEntity.getPos());
+        }
+    }
 }
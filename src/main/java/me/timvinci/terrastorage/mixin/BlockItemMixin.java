@@ -0,0 +1,39 @@
+package me.timvinci.terrastorage.mixin;
+
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.LockableContainerBlockEntity;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.BlockItem;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import org.jetbrains.annotations.Nullable;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * A mixin of the BlockItem class, used to detect the placement of storages that were named before being placed.
+ */
+@Mixin(BlockItem.class)
+public class BlockItemMixin {
+
+    /**
+     * Records the player placing a storage whose name puts it in a storage group as the owner of its group membership.
+     */
+    @Inject(method = "postPlacement", at = @At("RETURN"))
+    private void postPlacement(BlockPos pos, World world, @Nullable PlayerEntity player, ItemStack stack, BlockState state, CallbackInfoReturnable<Boolean> cir) {
+        if (player == null || !(world instanceof ServerWorld serverWorld) ||
+                StorageCatalog.getGroupName(stack.get(DataComponentTypes.CUSTOM_NAME)) == null) {
+            return;
+        }
+
+        if (serverWorld.getBlockEntity(pos) instanceof LockableContainerBlockEntity) {
+            StorageCatalog.setGroupOwner(serverWorld, pos, player.getUuid());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package me.timvinci.terrastorage.mixin;
 
+import me.timvinci.terrastorage.catalog.StorageCatalog;
 import me.timvinci.terrastorage.network.NetworkHandler;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.ChestBlock;
@@ -42,6 +43,7 @@ public class ChestBlockMixin {
                 serverWorld.getServer().execute(() -> {
                     LockableContainerBlockEntity chestNeighborBlockEntity = (LockableContainerBlockEntity) serverWorld.getBlockEntity(neighborPos);
                     ((LockableContainerBlockEntityAccessor)chestNeighborBlockEntity).setCustomName(chestBlockEntity.getCustomName());
+                    StorageCatalog.copyGroupOwner(serverWorld, pos, neighborPos);
 
                     chestNeighborBlockEntity.markDirty();
                     NetworkHandler.sendGlobalBlockRenamedPayload(serverWorld, neighborPos, chestBlockEntity.getCustomName().getString());
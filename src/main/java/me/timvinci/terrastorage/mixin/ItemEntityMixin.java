@@ -18,6 +18,8 @@ public class ItemEntityMixin {
     /**
      * Based on the keep favorites on drop option, removes the favorite status of an item stack before it is used by
      * the item entity.
+     * Returns after a single flag read when favorites are kept on drop, which is the default, or when item favoriting is
+     * disabled.
      */
     @ModifyVariable(
             method = "setStack",
@@ -25,7 +27,7 @@ public class ItemEntityMixin {
             argsOnly = true
     )
     private ItemStack modifySetStack(ItemStack stack) {
-        if (ConfigManager.getInstance().getConfig().getKeepFavoritesOnDrop()) {
+        if (!ConfigManager.shouldRemoveFavoritesOnDrop() || stack.isEmpty()) {
             return stack;
         }
 
@@ -1,6 +1,7 @@
 package me.timvinci.terrastorage.mixin;
 
 import net.minecraft.block.entity.LockableContainerBlockEntity;
+import net.minecraft.inventory.ContainerLock;
 import net.minecraft.text.Text;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.gen.Accessor;
@@ -14,6 +15,9 @@ public interface LockableContainerBlockEntityAccessor {
     @Accessor("customName")
     void setCustomName(Text customName);
 
+    @Accessor("lock")
+    ContainerLock getLock();
+
     @Invoker("getContainerName")
     Text invokeGetContainerName();
 }
@@ -1,6 +1,8 @@
 package me.timvinci.terrastorage.mixin;
 
 import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.inventory.SlotBackedInventory;
+import me.timvinci.terrastorage.inventory.SlotBackedInventoryHolder;
 import me.timvinci.terrastorage.api.ItemFavoritingUtils;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.PlayerInventory;
@@ -18,10 +20,23 @@ import java.util.Optional;
 
 /**
  * A mixin of the ScreenHandler class, used to make the favorite item interactions feel and behave similarly to how they
- * do in Terraria.
+ * do in Terraria, and to hold the SlotBackedInventory of "broken" screen handlers.
  */
 @Mixin(ScreenHandler.class)
-public abstract class ScreenHandlerMixin {
+public abstract class ScreenHandlerMixin implements SlotBackedInventoryHolder {
+    @Unique
+    @Nullable
+    private SlotBackedInventory slotBackedInventory;
+
+    @Override
+    public @Nullable SlotBackedInventory terrastorage$getSlotBackedInventory() {
+        return slotBackedInventory;
+    }
+
+    @Override
+    public void terrastorage$setSlotBackedInventory(SlotBackedInventory slotBackedInventory) {
+        this.slotBackedInventory = slotBackedInventory;
+    }
 
     /**
      * Redirects the Slot.setStack call from within the internalOnSlotClick method.
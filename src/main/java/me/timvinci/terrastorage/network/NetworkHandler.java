@@ -1,17 +1,24 @@
 package me.timvinci.terrastorage.network;
 
 import me.timvinci.terrastorage.Terrastorage;
+import me.timvinci.terrastorage.catalog.StorageMatch;
 import me.timvinci.terrastorage.config.ConfigManager;
 import me.timvinci.terrastorage.network.s2c.BlockRenamedPayload;
+import me.timvinci.terrastorage.network.s2c.FoundStoragesPayload;
+import me.timvinci.terrastorage.network.s2c.HighlightedStoragesPayload;
+import me.timvinci.terrastorage.network.s2c.ScreenTitlePayload;
 import me.timvinci.terrastorage.network.s2c.ServerConfigPayload;
 import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.item.Item;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Handles server to client payload sending.
@@ -37,6 +44,40 @@ public class NetworkHandler {
         }
     }
 
+    /**
+     * Sends a screen title payload to a player, allowing their client to update the title of the open screen in place.
+     * @param player The player.
+     * @param syncId The sync id of the player's open screen handler.
+     * @param title The new title of the screen.
+     * @return True if the payload was sent, false if the player's client can't receive it.
+     */
+    public static boolean sendScreenTitlePayload(ServerPlayerEntity player, int syncId, Text title) {
+        if (ServerPlayNetworking.canSend(player, ScreenTitlePayload.ID)) {
+            ServerPlayNetworking.send(player, new ScreenTitlePayload(syncId, title));
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Sends the results of a storage search to a player.
+     * @param player The player who searched.
+     * @param item The item searched for.
+     * @param matches The storages holding the item, nearest first.
+     */
+    public static void sendFoundStoragesPayload(ServerPlayerEntity player, Item item, List<StorageMatch> matches) {
+        if (ServerPlayNetworking.canSend(player, FoundStoragesPayload.ID)) {
+            ServerPlayNetworking.send(player, new FoundStoragesPayload(item, matches));
+        }
+    }
+
+    public static void sendHighlightedStoragesPayload(ServerPlayerEntity player, List<BlockPos> positions) {
+        if (ServerPlayNetworking.canSend(player, HighlightedStoragesPayload.ID)) {
+            ServerPlayNetworking.send(player, new HighlightedStoragesPayload(positions));
+        }
+    }
+
     /**
      * Sends a server config payload to all players present on the server.
      * @param server The server.
@@ -50,7 +91,7 @@ public class NetworkHandler {
     public static void sendServerConfigPayload(ServerPlayerEntity player) {
         if (ServerPlayNetworking.canSend(player, ServerConfigPayload.ID)) {
             ServerPlayNetworking.send(player, new ServerConfigPayload(
-                    ConfigManager.getInstance().getConfig().getActionCooldown(),
+                    ConfigManager.getSnapshot().actionCooldown(),
                     Terrastorage.itemFavoritingEnabled)
             );
         }
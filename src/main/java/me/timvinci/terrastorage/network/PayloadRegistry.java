@@ -2,6 +2,9 @@ package me.timvinci.terrastorage.network;
 
 import me.timvinci.terrastorage.network.c2s.*;
 import me.timvinci.terrastorage.network.s2c.BlockRenamedPayload;
+import me.timvinci.terrastorage.network.s2c.FoundStoragesPayload;
+import me.timvinci.terrastorage.network.s2c.HighlightedStoragesPayload;
+import me.timvinci.terrastorage.network.s2c.ScreenTitlePayload;
 import me.timvinci.terrastorage.network.s2c.ServerConfigPayload;
 import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
@@ -20,6 +23,11 @@ public class PayloadRegistry {
             context.server().execute(() -> StorageActionPayload.receive(context.player(), payload.syncId(), payload.action(), payload.hotbarProtection(), payload.smartDepositMode()));
         });
 
+        PayloadTypeRegistry.playC2S().register(StorageActionSequencePayload.ID, StorageActionSequencePayload.sequenceCodec);
+        ServerPlayNetworking.registerGlobalReceiver(StorageActionSequencePayload.ID, (payload, context) -> {
+            context.server().execute(() -> StorageActionSequencePayload.receive(context.player(), payload.syncId(), payload.actions(), payload.sortType(), payload.hotbarProtection(), payload.smartDepositMode()));
+        });
+
         PayloadTypeRegistry.playC2S().register(SortPayload.ID, SortPayload.storageSortCodec);
         ServerPlayNetworking.registerGlobalReceiver(SortPayload.ID, (payload, context) -> {
             context.server().execute(() -> SortPayload.receive(context.player(), payload.syncId(), payload.type(), payload.hotbarProtection()));
@@ -35,7 +43,20 @@ public class PayloadRegistry {
             context.server().execute(() -> ItemFavoritePayload.receive(context.player(), payload.slotId(), payload.value()));
         });
 
+        PayloadTypeRegistry.playC2S().register(FindStoragesPayload.ID, FindStoragesPayload.findCodec);
+        ServerPlayNetworking.registerGlobalReceiver(FindStoragesPayload.ID, (payload, context) -> {
+            context.server().execute(() -> FindStoragesPayload.receive(context.player(), payload.item()));
+        });
+
+        PayloadTypeRegistry.playC2S().register(HighlightStoragesPayload.ID, HighlightStoragesPayload.highlightCodec);
+        ServerPlayNetworking.registerGlobalReceiver(HighlightStoragesPayload.ID, (payload, context) -> {
+            context.server().execute(() -> HighlightStoragesPayload.receive(context.player(), payload.stack()));
+        });
+
         PayloadTypeRegistry.playS2C().register(BlockRenamedPayload.ID, BlockRenamedPayload.renamedCodec);
         PayloadTypeRegistry.playS2C().register(ServerConfigPayload.ID, ServerConfigPayload.configCodec);
+        PayloadTypeRegistry.playS2C().register(ScreenTitlePayload.ID, ScreenTitlePayload.titleCodec);
+        PayloadTypeRegistry.playS2C().register(FoundStoragesPayload.ID, FoundStoragesPayload.foundCodec);
+        PayloadTypeRegistry.playS2C().register(HighlightedStoragesPayload.ID, HighlightedStoragesPayload.highlightedCodec);
     }
 }
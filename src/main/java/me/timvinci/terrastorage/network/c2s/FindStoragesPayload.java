@@ -0,0 +1,55 @@
+package me.timvinci.terrastorage.network.c2s;
+
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import me.timvinci.terrastorage.catalog.StorageMatch;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.network.NetworkHandler;
+import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.TextStyler;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.List;
+
+/**
+ * A payload sent from the client to the server once a player searches for the storages holding an item.
+ * @param item The item searched for.
+ */
+public record FindStoragesPayload(Item item) implements CustomPayload {
+    public static final Id<FindStoragesPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "find_storages_v" + Reference.PROTOCOL_VERSION));
+    // Items are written by their raw id, which is synced between the client and the server.
+    public static final PacketCodec<PacketByteBuf, FindStoragesPayload> findCodec = PacketCodec.of(
+            (value, buf) -> buf.writeVarInt(Registries.ITEM.getRawId(value.item)),
+            buf -> new FindStoragesPayload(Registries.ITEM.get(buf.readVarInt()))
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() { return ID; }
+
+    /**
+     * Searches the storage catalog of the player's world for the storages holding the item within the player's quick
+     * stack volume, and sends the results back to the player. Storages are left out like Quick Stack To Nearby
+     * Storages leaves them out. The player is told when the
+     * storage catalog is disabled instead.
+     * @param player The player searching.
+     * @param item The item searched for.
+     */
+    public static void receive(ServerPlayerEntity player, Item item) {
+        if (item == Items.AIR || !StorageCatalog.tryStartSearch(player)) {
+            return;
+        }
+        if (!ConfigManager.getSnapshot().storageCatalog()) {
+            player.sendMessage(TextStyler.error("terrastorage.message.storage_catalog_disabled"), false);
+            return;
+        }
+
+        List<StorageMatch> matches = StorageCatalog.findNear(player, item, StorageCatalog.FIND_LIMIT);
+        NetworkHandler.sendFoundStoragesPayload(player, item, matches);
+    }
+}
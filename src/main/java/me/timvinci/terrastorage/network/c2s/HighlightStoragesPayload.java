@@ -0,0 +1,47 @@
+package me.timvinci.terrastorage.network.c2s;
+
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.network.NetworkHandler;
+import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.TextStyler;
+import net.minecraft.item.ItemStack;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+/**
+ * A payload sent from the client to the server once a player asks which nearby storages hold the item they're
+ * holding or hovering over.
+ * @param stack The stack whose item and components are searched for.
+ */
+public record HighlightStoragesPayload(ItemStack stack) implements CustomPayload {
+    public static final Id<HighlightStoragesPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "highlight_storages_v" + Reference.PROTOCOL_VERSION));
+    public static final PacketCodec<RegistryByteBuf, HighlightStoragesPayload> highlightCodec = PacketCodec.of(
+            (value, buf) -> ItemStack.PACKET_CODEC.encode(buf, value.stack),
+            buf -> new HighlightStoragesPayload(ItemStack.PACKET_CODEC.decode(buf))
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() { return ID; }
+
+    /**
+     * Finds the storages within the quick stack range of the player that hold the stack, and sends their positions
+     * back to the player. The player is told when the storage catalog is disabled instead.
+     * @param player The player searching.
+     * @param stack The stack searched for.
+     */
+    public static void receive(ServerPlayerEntity player, ItemStack stack) {
+        if (!StorageCatalog.tryStartSearch(player)) {
+            return;
+        }
+        if (!ConfigManager.getSnapshot().storageCatalog()) {
+            player.sendMessage(TextStyler.error("terrastorage.message.storage_catalog_disabled"), false);
+            return;
+        }
+
+        NetworkHandler.sendHighlightedStoragesPayload(player, StorageCatalog.findHolding(player, stack));
+    }
+}
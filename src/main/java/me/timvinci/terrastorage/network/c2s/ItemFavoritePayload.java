@@ -17,16 +17,14 @@ import net.minecraft.util.Identifier;
  * @param value The favorite state.
  */
 public record ItemFavoritePayload(int slotId, boolean value) implements CustomPayload {
-    public static final Id<ItemFavoritePayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "item_favorite_action"));
+    public static final Id<ItemFavoritePayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "item_favorite_action_v" + Reference.PROTOCOL_VERSION));
+    // The favorite state is packed into the lowest bit of the slot id varint.
     public static final PacketCodec<PacketByteBuf, ItemFavoritePayload> toggleItemFavoritedCodec = PacketCodec.of(
-            (value, buf) -> {
-                buf.writeInt(value.slotId);
-                buf.writeBoolean(value.value);
-            },
-            buf -> new ItemFavoritePayload(
-                    buf.readInt(),
-                    buf.readBoolean()
-            )
+            (value, buf) -> buf.writeVarInt(value.slotId << 1 | (value.value ? 1 : 0)),
+            buf -> {
+                int packed = buf.readVarInt();
+                return new ItemFavoritePayload(packed >> 1, (packed & 1) != 0);
+            }
     );
 
     @Override
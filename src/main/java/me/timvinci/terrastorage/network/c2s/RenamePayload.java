@@ -1,6 +1,8 @@
 package me.timvinci.terrastorage.network.c2s;
 
+import me.timvinci.terrastorage.stats.TerrastorageStats;
 import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.StorageAction;
 import me.timvinci.terrastorage.util.TerrastorageCore;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.codec.PacketCodec;
@@ -47,6 +49,8 @@ public record RenamePayload(int syncId, String newName) implements CustomPayload
             return;
         }
 
+        long start = TerrastorageStats.start();
         TerrastorageCore.renameStorage(player, newName);
+        TerrastorageStats.record(player, StorageAction.RENAME, start);
     }
 }
@@ -1,18 +1,18 @@
 package me.timvinci.terrastorage.network.c2s;
 
-import me.timvinci.terrastorage.inventory.SlotBackedInventory;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
 import me.timvinci.terrastorage.util.Reference;
 import me.timvinci.terrastorage.util.SortType;
+import me.timvinci.terrastorage.util.StorageAction;
 import me.timvinci.terrastorage.util.TerrastorageCore;
-import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.codec.PacketCodec;
 import net.minecraft.network.packet.CustomPayload;
-import net.minecraft.screen.ScreenHandler;
-import net.minecraft.screen.slot.Slot;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 
 import java.util.List;
@@ -29,18 +29,37 @@ public record SortPayload(
         SortType type,
         Optional<Boolean> hotbarProtection
 ) implements CustomPayload {
-    public static final Id<SortPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "sort_action"));
+    public static final Id<SortPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "sort_action_v" + Reference.PROTOCOL_VERSION));
+    // The sort type ordinal and the flags of the payload are packed into a single byte, followed by the sync id as a
+    // varint.
+    private static final int TYPE_MASK = 0x07;
+    private static final int HAS_SYNC_ID = 1 << 3;
+    private static final int HAS_HOTBAR_PROTECTION = 1 << 4;
+    private static final int HOTBAR_PROTECTION = 1 << 5;
     public static final PacketCodec<PacketByteBuf, SortPayload> storageSortCodec = PacketCodec.of(
             (value, buf) -> {
-                buf.writeOptional(value.syncId, PacketByteBuf::writeInt);
-                buf.writeEnumConstant(value.type);
-                buf.writeOptional(value.hotbarProtection, PacketByteBuf::writeBoolean);
+                int flags = value.type.ordinal();
+                if (value.syncId.isPresent()) {
+                    flags |= HAS_SYNC_ID;
+                }
+                if (value.hotbarProtection.isPresent()) {
+                    flags |= HAS_HOTBAR_PROTECTION;
+                    if (value.hotbarProtection.get()) {
+                        flags |= HOTBAR_PROTECTION;
+                    }
+                }
+
+                buf.writeByte(flags);
+                value.syncId.ifPresent(buf::writeSyncId);
             },
-            buf -> new SortPayload(
-                    buf.readOptional(PacketByteBuf::readInt),
-                    buf.readEnumConstant(SortType.class),
-                    buf.readOptional(PacketByteBuf::readBoolean)
-            )
+            buf -> {
+                int flags = buf.readUnsignedByte();
+                return new SortPayload(
+                        (flags & HAS_SYNC_ID) != 0 ? Optional.of(buf.readSyncId()) : Optional.empty(),
+                        SortType.values()[flags & TYPE_MASK],
+                        (flags & HAS_HOTBAR_PROTECTION) != 0 ? Optional.of((flags & HOTBAR_PROTECTION) != 0) : Optional.empty()
+                );
+            }
     );
     @Override
     public Id<? extends CustomPayload> getId() { return ID; }
@@ -55,7 +74,14 @@ public record SortPayload(
     public static void receive(ServerPlayerEntity player, Optional<Integer> syncId, SortType type, Optional<Boolean> hotbarProtection) {
         if (hotbarProtection.isPresent()) {
             // Player inventory sorting.
+            if (ActionTraceRecorder.isRecording()) {
+                ActionTraceRecorder.record(player, ActionTrace.capture(ActionTrace.SORT_PLAYER_INVENTORY, List.of(), type,
+                        hotbarProtection.get(), false, player.getInventory(), List.of()));
+            }
+
+            long start = TerrastorageStats.start();
             TerrastorageCore.sortPlayerItems(player.getInventory(), type, hotbarProtection.get());
+            TerrastorageStats.record(player, "sort_player_inventory", start);
         }
         else {
             // Storage sorting.
@@ -63,28 +89,19 @@ public record SortPayload(
                 return;
             }
 
-            Inventory storageInventory;
-            Slot firstSlot = player.currentScreenHandler.slots.getFirst();
-            if (firstSlot.inventory.size() != 0) {
-                if (!firstSlot.canTakeItems(player)) {
-                    player.sendMessage(Text.translatable("terrastorage.message.restricted_inventory"));
-                    return;
-                }
-
-                // Get the storage's inventory from the player's screen handler.
-                storageInventory = firstSlot.inventory;
+            Inventory storageInventory = InventoryUtils.getOpenStorageInventory(player);
+            if (storageInventory == null) {
+                return;
             }
-            else { // Handle "broken" screen handlers
-                List<Slot> nonPlayerSlots = player.currentScreenHandler.slots.stream()
-                        .filter(slot -> !(slot.inventory instanceof PlayerInventory))
-                        .toList();
 
-                // Create a SlotBackedInventory, which will hold a reference to all slots and will make inventory
-                // adjustments using them.
-                storageInventory = new SlotBackedInventory(nonPlayerSlots);
+            if (ActionTraceRecorder.isRecording()) {
+                ActionTraceRecorder.record(player, ActionTrace.capture(StorageAction.SORT_ITEMS.name(), List.of(), type,
+                        false, false, player.getInventory(), List.of(storageInventory)));
             }
 
+            long start = TerrastorageStats.start();
             TerrastorageCore.sortStorageItems(storageInventory, type);
+            TerrastorageStats.record(player, StorageAction.SORT_ITEMS, start);
         }
     }
 }
@@ -1,17 +1,20 @@
 package me.timvinci.terrastorage.network.c2s;
 
-import me.timvinci.terrastorage.inventory.SlotBackedInventory;
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
 import me.timvinci.terrastorage.util.Reference;
 import me.timvinci.terrastorage.util.StorageAction;
 import me.timvinci.terrastorage.util.TerrastorageCore;
-import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.codec.PacketCodec;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.screen.slot.Slot;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 
 import java.util.List;
@@ -30,20 +33,41 @@ public record StorageActionPayload(
         boolean hotbarProtection,
         Optional<Boolean> smartDepositMode
 ) implements CustomPayload {
-    public static final Id<StorageActionPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "storage_action"));
+    public static final Id<StorageActionPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "storage_action_v" + Reference.PROTOCOL_VERSION));
+    // The action ordinal and the flags of the payload are packed into a single byte, followed by the sync id as a varint.
+    private static final int ACTION_MASK = 0x0F;
+    private static final int HOTBAR_PROTECTION = 1 << 4;
+    private static final int HAS_SYNC_ID = 1 << 5;
+    private static final int HAS_SMART_DEPOSIT_MODE = 1 << 6;
+    private static final int SMART_DEPOSIT_MODE = 1 << 7;
     public static final PacketCodec<PacketByteBuf, StorageActionPayload> actionCodec = PacketCodec.of(
             (value, buf) -> {
-                buf.writeOptional(value.syncId, PacketByteBuf::writeInt);
-                buf.writeEnumConstant(value.action);
-                buf.writeBoolean(value.hotbarProtection);
-                buf.writeOptional(value.smartDepositMode, PacketByteBuf::writeBoolean);
+                int flags = value.action.ordinal();
+                if (value.hotbarProtection) {
+                    flags |= HOTBAR_PROTECTION;
+                }
+                if (value.syncId.isPresent()) {
+                    flags |= HAS_SYNC_ID;
+                }
+                if (value.smartDepositMode.isPresent()) {
+                    flags |= HAS_SMART_DEPOSIT_MODE;
+                    if (value.smartDepositMode.get()) {
+                        flags |= SMART_DEPOSIT_MODE;
+                    }
+                }
+
+                buf.writeByte(flags);
+                value.syncId.ifPresent(buf::writeSyncId);
             },
-            buf -> new StorageActionPayload(
-                    buf.readOptional(PacketByteBuf::readInt),
-                    buf.readEnumConstant(StorageAction.class),
-                    buf.readBoolean(),
-                    buf.readOptional(PacketByteBuf::readBoolean)
-            )
+            buf -> {
+                int flags = buf.readUnsignedByte();
+                return new StorageActionPayload(
+                        (flags & HAS_SYNC_ID) != 0 ? Optional.of(buf.readSyncId()) : Optional.empty(),
+                        StorageAction.values()[flags & ACTION_MASK],
+                        (flags & HOTBAR_PROTECTION) != 0,
+                        (flags & HAS_SMART_DEPOSIT_MODE) != 0 ? Optional.of((flags & SMART_DEPOSIT_MODE) != 0) : Optional.empty()
+                );
+            }
     );
     @Override
     public Id<? extends CustomPayload> getId() { return ID ; }
@@ -58,32 +82,27 @@ public record StorageActionPayload(
      * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
      */
     public static void receive(ServerPlayerEntity player, Optional<Integer> syncId, StorageAction action, boolean hotbarProtection, Optional<Boolean> smartDepositMode) {
-        if (action != StorageAction.QUICK_STACK_TO_NEARBY) {
+        if (!action.targetsNearbyStorages()) {
             if (player.currentScreenHandler == null || player.currentScreenHandler.syncId != syncId.get()) {
                 return;
             }
 
-            Inventory storageInventory;
-            Slot firstSlot = player.currentScreenHandler.slots.getFirst();
-            if (firstSlot.inventory.size() != 0) {
-                if (!firstSlot.canTakeItems(player)) {
-                    player.sendMessage(Text.translatable("terrastorage.message.restricted_inventory"));
-                    return;
-                }
+            Inventory storageInventory = InventoryUtils.getOpenStorageInventory(player);
+            if (storageInventory == null) {
+                return;
+            }
 
-                // Get the storage's inventory from the player's screen handler.
-                storageInventory = firstSlot.inventory;
+            Slot firstSlot = player.currentScreenHandler.slots.getFirst();
+            if (action != StorageAction.DEPOSIT_ALL && ConfigManager.getSnapshot().storageGroups()) {
+                storageInventory = StorageCatalog.getGroupInventory(player, storageInventory);
             }
-            else { // Handle "broken" screen handlers
-                List<Slot> nonPlayerSlots = player.currentScreenHandler.slots.stream()
-                        .filter(slot -> !(slot.inventory instanceof PlayerInventory))
-                        .toList();
 
-                // Create a SlotBackedInventory, which will hold a reference to all slots and will make inventory
-                // adjustments using them.
-                storageInventory = new SlotBackedInventory(nonPlayerSlots);
+            if (ActionTraceRecorder.isRecording()) {
+                ActionTraceRecorder.record(player, ActionTrace.capture(action.name(), List.of(), null, hotbarProtection,
+                        smartDepositMode.orElse(false), player.getInventory(), List.of(storageInventory)));
             }
 
+            long start = TerrastorageStats.start();
             switch (action) {
                 case LOOT_ALL -> TerrastorageCore.lootAll(player.getInventory(), storageInventory, hotbarProtection);
                 case DEPOSIT_ALL -> TerrastorageCore.depositAll(player.getInventory(), storageInventory, firstSlot, hotbarProtection);
@@ -91,9 +110,17 @@ public record StorageActionPayload(
                 case RESTOCK -> TerrastorageCore.restock(player.getInventory(), storageInventory, hotbarProtection);
                 default -> throw new IllegalArgumentException("Unknown storage action: " + action);
             }
+            TerrastorageStats.record(player, action, start);
         }
         else {
-            TerrastorageCore.quickStackToNearbyStorages(player, hotbarProtection, smartDepositMode.get());
+            long start = TerrastorageStats.start();
+            if (action == StorageAction.QUICK_STACK_TO_NEARBY) {
+                TerrastorageCore.quickStackToNearbyStorages(player, hotbarProtection, smartDepositMode.get());
+            }
+            else {
+                TerrastorageCore.restockFromNearbyStorages(player, hotbarProtection);
+            }
+            TerrastorageStats.record(player, action, start);
         }
     }
 }
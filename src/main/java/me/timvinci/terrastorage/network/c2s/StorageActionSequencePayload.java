@@ -0,0 +1,140 @@
+package me.timvinci.terrastorage.network.c2s;
+
+import io.netty.handler.codec.DecoderException;
+import me.timvinci.terrastorage.catalog.StorageCatalog;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.inventory.InventoryUtils;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
+import me.timvinci.terrastorage.util.Reference;
+import me.timvinci.terrastorage.util.SortType;
+import me.timvinci.terrastorage.util.StorageAction;
+import me.timvinci.terrastorage.util.TerrastorageCore;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A payload sent from the client to the server once a player initiates a sequence of storage actions on the same
+ * storage, which the server carries out as a single operation.
+ * @param syncId The sync id of the screen handler from which the actions were sent.
+ * @param actions The actions initiated, in order.
+ * @param sortType The sorting type of the player.
+ * @param hotbarProtection The hotbar protection value of the player.
+ * @param smartDepositMode Whether the player's storage quick stack mode is 'smart deposit'.
+ */
+public record StorageActionSequencePayload(
+        int syncId,
+        List<StorageAction> actions,
+        SortType sortType,
+        boolean hotbarProtection,
+        boolean smartDepositMode
+) implements CustomPayload {
+    public static final Id<StorageActionSequencePayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "storage_action_sequence_v" + Reference.PROTOCOL_VERSION));
+    // The actions that can be carried out as part of a sequence, all of which target the open storage, or its storage
+    // group for Loot All, Quick Stack and Restock when storage groups are enabled.
+    public static final Set<StorageAction> SEQUENCEABLE_ACTIONS = EnumSet.of(
+            StorageAction.LOOT_ALL,
+            StorageAction.DEPOSIT_ALL,
+            StorageAction.QUICK_STACK,
+            StorageAction.RESTOCK,
+            StorageAction.SORT_ITEMS
+    );
+    public static final int MAX_ACTIONS = 8;
+    // The sort type ordinal and the flags of the payload are packed into a single byte, followed by the sync id as a
+    // varint, the action count, and one byte per action ordinal.
+    private static final int TYPE_MASK = 0x07;
+    private static final int HOTBAR_PROTECTION = 1 << 3;
+    private static final int SMART_DEPOSIT_MODE = 1 << 4;
+    public static final PacketCodec<PacketByteBuf, StorageActionSequencePayload> sequenceCodec = PacketCodec.of(
+            (value, buf) -> {
+                int flags = value.sortType.ordinal();
+                if (value.hotbarProtection) {
+                    flags |= HOTBAR_PROTECTION;
+                }
+                if (value.smartDepositMode) {
+                    flags |= SMART_DEPOSIT_MODE;
+                }
+
+                buf.writeByte(flags);
+                buf.writeSyncId(value.syncId);
+                buf.writeByte(value.actions.size());
+                for (StorageAction action : value.actions) {
+                    buf.writeByte(action.ordinal());
+                }
+            },
+            buf -> {
+                int flags = buf.readUnsignedByte();
+                int syncId = buf.readSyncId();
+                int actionCount = buf.readUnsignedByte();
+                if (actionCount > MAX_ACTIONS) {
+                    throw new DecoderException("Storage action sequence is too long: " + actionCount);
+                }
+
+                StorageAction[] allActions = StorageAction.values();
+                List<StorageAction> actions = new ArrayList<>(actionCount);
+                for (int i = 0; i < actionCount; i++) {
+                    actions.add(allActions[buf.readUnsignedByte()]);
+                }
+
+                return new StorageActionSequencePayload(
+                        syncId,
+                        actions,
+                        SortType.values()[flags & TYPE_MASK],
+                        (flags & HOTBAR_PROTECTION) != 0,
+                        (flags & SMART_DEPOSIT_MODE) != 0
+                );
+            }
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() { return ID; }
+
+    /**
+     * Handles the identification of the inventory the player is interacting with, before calling TerrastorageCore to
+     * perform the sequence of storage actions.
+     * @param player The player initiating the storage actions.
+     * @param syncId The sync id of the screen handler from which the actions were sent.
+     * @param actions The actions initiated, in order.
+     * @param sortType The sorting type of the player.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's storage quick stack mode is 'smart deposit'.
+     */
+    public static void receive(ServerPlayerEntity player, int syncId, List<StorageAction> actions, SortType sortType, boolean hotbarProtection, boolean smartDepositMode) {
+        if (player.currentScreenHandler == null || player.currentScreenHandler.syncId != syncId ||
+            actions.isEmpty() || !SEQUENCEABLE_ACTIONS.containsAll(actions)) {
+            return;
+        }
+
+        Inventory storageInventory = InventoryUtils.getOpenStorageInventory(player);
+        if (storageInventory == null) {
+            return;
+        }
+
+        Inventory groupInventory = storageInventory;
+        if (ConfigManager.getSnapshot().storageGroups() && (actions.contains(StorageAction.LOOT_ALL) ||
+                actions.contains(StorageAction.QUICK_STACK) || actions.contains(StorageAction.RESTOCK))) {
+            groupInventory = StorageCatalog.getGroupInventory(player, storageInventory);
+        }
+
+        if (ActionTraceRecorder.isRecording()) {
+            // Sequences are traced against the open storage alone, and replayed without its group.
+            ActionTraceRecorder.record(player, ActionTrace.capture(ActionTrace.ACTION_SEQUENCE, actions, sortType,
+                    hotbarProtection, smartDepositMode, player.getInventory(), List.of(storageInventory)));
+        }
+
+        long start = TerrastorageStats.start();
+        TerrastorageCore.performActionSequence(player.getInventory(), storageInventory, groupInventory, player.currentScreenHandler.slots.getFirst(),
+                actions, sortType, hotbarProtection, smartDepositMode);
+        TerrastorageStats.record(player, "action_sequence", start);
+    }
+}
@@ -0,0 +1,47 @@
+package me.timvinci.terrastorage.network.s2c;
+
+import me.timvinci.terrastorage.catalog.StorageMatch;
+import me.timvinci.terrastorage.util.Reference;
+import net.minecraft.item.Item;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A server to client payload, answering a FindStoragesPayload with the storages holding the item.
+ * @param item The item searched for.
+ * @param matches The storages holding the item, nearest first.
+ */
+public record FoundStoragesPayload(Item item, List<StorageMatch> matches) implements CustomPayload {
+    public static final Id<FoundStoragesPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "found_storages_v" + Reference.PROTOCOL_VERSION));
+    public static final PacketCodec<PacketByteBuf, FoundStoragesPayload> foundCodec = PacketCodec.of(
+            (value, buf) -> {
+                buf.writeVarInt(Registries.ITEM.getRawId(value.item));
+                buf.writeVarInt(value.matches.size());
+                for (StorageMatch match : value.matches) {
+                    buf.writeBlockPos(match.pos());
+                    buf.writeVarInt(match.count());
+                }
+            },
+            buf -> {
+                Item item = Registries.ITEM.get(buf.readVarInt());
+                int size = buf.readVarInt();
+                List<StorageMatch> matches = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    matches.add(new StorageMatch(buf.readBlockPos(), buf.readVarInt()));
+                }
+
+                return new FoundStoragesPayload(item, matches);
+            }
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,43 @@
+package me.timvinci.terrastorage.network.s2c;
+
+import me.timvinci.terrastorage.util.Reference;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A server to client payload, answering a HighlightStoragesPayload with the positions of the storages to outline.
+ * See client/network/ClientReceiverRegistry for the handling of this payload on the client side.
+ * @param positions The positions of the storages holding the searched stack.
+ */
+public record HighlightedStoragesPayload(List<BlockPos> positions) implements CustomPayload {
+    public static final Id<HighlightedStoragesPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "highlighted_storages_v" + Reference.PROTOCOL_VERSION));
+    // The positions are written as a count followed by their packed long form.
+    public static final PacketCodec<PacketByteBuf, HighlightedStoragesPayload> highlightedCodec = PacketCodec.of(
+            (value, buf) -> {
+                buf.writeVarInt(value.positions.size());
+                for (BlockPos pos : value.positions) {
+                    buf.writeLong(pos.asLong());
+                }
+            },
+            buf -> {
+                int size = buf.readVarInt();
+                List<BlockPos> positions = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    positions.add(BlockPos.fromLong(buf.readLong()));
+                }
+
+                return new HighlightedStoragesPayload(positions);
+            }
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
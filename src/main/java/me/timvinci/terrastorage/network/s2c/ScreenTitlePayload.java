@@ -0,0 +1,34 @@
+package me.timvinci.terrastorage.network.s2c;
+
+import me.timvinci.terrastorage.util.Reference;
+import net.minecraft.network.RegistryByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.text.Text;
+import net.minecraft.text.TextCodecs;
+import net.minecraft.util.Identifier;
+
+/**
+ * A server to client payload, notifying the client that the title of its open storage screen has changed.
+ * See client/network/ClientReceiverRegistry for the handling of this payload on the client side.
+ * @param syncId The sync id of the screen handler whose title was changed.
+ * @param title The new title of the screen.
+ */
+public record ScreenTitlePayload(int syncId, Text title) implements CustomPayload {
+    public static final Id<ScreenTitlePayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "screen_title_update"));
+    public static final PacketCodec<RegistryByteBuf, ScreenTitlePayload> titleCodec = PacketCodec.of(
+            (value, buf) -> {
+                buf.writeSyncId(value.syncId);
+                TextCodecs.REGISTRY_PACKET_CODEC.encode(buf, value.title);
+            },
+            buf -> new ScreenTitlePayload(
+                    buf.readSyncId(),
+                    TextCodecs.REGISTRY_PACKET_CODEC.decode(buf)
+            )
+    );
+
+    @Override
+    public Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
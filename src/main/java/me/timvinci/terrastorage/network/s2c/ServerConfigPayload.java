@@ -13,16 +13,21 @@ import net.minecraft.util.Identifier;
  * @param enableItemFavoriting The enable item favoriting property value.
  */
 public record ServerConfigPayload(int actionCooldown, boolean enableItemFavoriting) implements CustomPayload {
-    public static final Id<ServerConfigPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "server_config_update"));
+    public static final Id<ServerConfigPayload> ID = new Id<>(Identifier.of(Reference.MOD_ID, "server_config_update_v" + Reference.PROTOCOL_VERSION));
+    // Boolean properties are packed into a single flag byte, followed by the integer properties as varints.
+    private static final int ENABLE_ITEM_FAVORITING = 1;
     public static final PacketCodec<PacketByteBuf, ServerConfigPayload> configCodec = PacketCodec.of(
             (value, buf) -> {
-                buf.writeInt(value.actionCooldown);
-                buf.writeBoolean(value.enableItemFavoriting);
+                buf.writeByte(value.enableItemFavoriting ? ENABLE_ITEM_FAVORITING : 0);
+                buf.writeVarInt(value.actionCooldown);
             },
-            buf -> new ServerConfigPayload(
-                    buf.readInt(),
-                    buf.readBoolean()
-            )
+            buf -> {
+                int flags = buf.readUnsignedByte();
+                return new ServerConfigPayload(
+                        buf.readVarInt(),
+                        (flags & ENABLE_ITEM_FAVORITING) != 0
+                );
+            }
     );
     @Override
     public Id<? extends CustomPayload> getId() { return ID; }
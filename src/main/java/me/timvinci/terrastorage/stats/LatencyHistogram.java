@@ -0,0 +1,98 @@
+package me.timvinci.terrastorage.stats;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size histogram of latencies in nanoseconds, with log-linear buckets in the style of HdrHistogram.
+ * Every power of two range is split into SUB_BUCKET_COUNT linear sub-buckets, which keeps the relative error of any
+ * reported value under 1 / SUB_BUCKET_COUNT, while recording a value costs a couple of bit operations and an array
+ * increment.
+ * Not thread safe, latencies are recorded and read on the server thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKET_COUNT are stored one per bucket, every following power of two gets SUB_BUCKET_COUNT buckets.
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /**
+     * Records a latency.
+     * @param nanos The latency, in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts[bucketIndex(nanos)]++;
+        totalCount++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return totalCount == 0 ? 0 : (double) totalNanos / totalCount;
+    }
+
+    /**
+     * Gets the latency at a percentile of the recorded latencies.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The highest latency that falls into the same bucket as the percentile, capped by the maximum recorded
+     * latency. 0 if no latencies were recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long targetCount = Math.max(1, (long) Math.ceil(totalCount * Math.min(percentile, 100.0) / 100.0));
+        long seenCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seenCount += counts[i];
+            if (seenCount >= targetCount) {
+                return Math.min(bucketHighestValue(i), maxNanos);
+            }
+        }
+
+        return maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        // The shift keeps the SUB_BUCKET_BITS + 1 highest bits of the value, the top one always being set.
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    private static long bucketHighestValue(int index) {
+        if (index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
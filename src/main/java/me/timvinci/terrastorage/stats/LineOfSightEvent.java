@@ -0,0 +1,26 @@
+package me.timvinci.terrastorage.stats;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event covering a single line of sight check against a storage.
+ * Disabled by default even while recording, as a single nearby discovery may perform thousands of them.
+ */
+@Name("terrastorage.LineOfSight")
+@Label("Line Of Sight Check")
+@Category("Terrastorage")
+@Description("A line of sight check from a player's eyes to a storage block or entity")
+@Enabled(false)
+@StackTrace(false)
+public class LineOfSightEvent extends Event {
+    @Label("X")
+    public double x;
+    @Label("Y")
+    public double y;
+    @Label("Z")
+    public double z;
+    @Label("Raycasts")
+    public int raycasts;
+    @Label("Visible")
+    public boolean visible;
+}
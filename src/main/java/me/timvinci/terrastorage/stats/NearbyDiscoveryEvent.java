@@ -0,0 +1,28 @@
+package me.timvinci.terrastorage.stats;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event covering the discovery of the storages nearby a player.
+ */
+@Name("terrastorage.NearbyDiscovery")
+@Label("Nearby Storage Discovery")
+@Category("Terrastorage")
+@Description("The search for storages within the quick stack range of a player")
+@StackTrace(false)
+public class NearbyDiscoveryEvent extends Event {
+    @Label("Player")
+    public String player;
+    @Label("Range")
+    public int range;
+    @Label("Scan Shape")
+    public String shape;
+    @Label("Line Of Sight Check")
+    public boolean lineOfSightCheck;
+    @Label("Candidate Positions")
+    public int candidatePositions;
+    @Label("Line Of Sight Checks")
+    public int lineOfSightChecks;
+    @Label("Storages Accepted")
+    public int storagesAccepted;
+}
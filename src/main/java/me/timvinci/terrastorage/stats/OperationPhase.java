@@ -0,0 +1,19 @@
+package me.timvinci.terrastorage.stats;
+
+/**
+ * An enum class defining the phases an operation's time is broken down into by the slow action log.
+ */
+public enum OperationPhase {
+    DISCOVERY,
+    LINE_OF_SIGHT,
+    STATE_BUILD,
+    TRANSFER,
+    SORT,
+    ANIMATION;
+
+    private static final OperationPhase[] VALUES = values();
+
+    static OperationPhase[] getValues() {
+        return VALUES;
+    }
+}
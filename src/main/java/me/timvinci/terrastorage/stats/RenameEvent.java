@@ -0,0 +1,22 @@
+package me.timvinci.terrastorage.stats;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event covering the renaming of a storage.
+ */
+@Name("terrastorage.Rename")
+@Label("Storage Rename")
+@Category("Terrastorage")
+@Description("The renaming of a storage block entity or entity")
+@StackTrace(false)
+public class RenameEvent extends Event {
+    @Label("Player")
+    public String player;
+    @Label("Storage")
+    public String storage;
+    @Label("Name Reset")
+    public boolean nameReset;
+    @Label("Screen Reopened")
+    public boolean screenReopened;
+}
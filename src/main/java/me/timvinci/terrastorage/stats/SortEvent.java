@@ -0,0 +1,22 @@
+package me.timvinci.terrastorage.stats;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event covering the sorting of a storage or of a player's inventory.
+ */
+@Name("terrastorage.Sort")
+@Label("Sort")
+@Category("Terrastorage")
+@Description("The combining and sorting of the items of an inventory")
+@StackTrace(false)
+public class SortEvent extends Event {
+    @Label("Target")
+    public String target;
+    @Label("Sort Type")
+    public String sortType;
+    @Label("Slots Scanned")
+    public int slotsScanned;
+    @Label("Stacks Placed")
+    public int stacksPlaced;
+}
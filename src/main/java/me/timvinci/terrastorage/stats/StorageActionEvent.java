@@ -0,0 +1,27 @@
+package me.timvinci.terrastorage.stats;
+
+import jdk.jfr.*;
+
+/**
+ * A flight recorder event covering a complete storage operation, from the moment its payload is handled.
+ * Begun and committed by TerrastorageStats.
+ */
+@Name("terrastorage.StorageAction")
+@Label("Storage Action")
+@Category("Terrastorage")
+@Description("A storage action, sort, action sequence or rename performed by a player")
+@StackTrace(false)
+public class StorageActionEvent extends Event {
+    @Label("Player")
+    public String player;
+    @Label("Action")
+    public String action;
+    @Label("Storages Scanned")
+    public int storagesScanned;
+    @Label("Slots Scanned")
+    public int slotsScanned;
+    @Label("Stacks Moved")
+    public int stacksMoved;
+    @Label("Items Moved")
+    public int itemsMoved;
+}
@@ -0,0 +1,216 @@
+package me.timvinci.terrastorage.stats;
+
+import me.timvinci.terrastorage.Terrastorage;
+import me.timvinci.terrastorage.config.ConfigManager;
+import me.timvinci.terrastorage.util.StorageAction;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.RegistryKey;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.world.World;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the latencies and counters of the operations performed by Terrastorage, per world.
+ * An operation is timed from start to one of the record methods, and the counters incremented in between are
+ * attributed to it. All operations run on the server thread, so the counters are plain fields.
+ * Each operation is also reported as a StorageActionEvent to the flight recorder, when one is recording, and logged
+ * with its phase breakdown when it takes longer than the slow action threshold.
+ */
+public class TerrastorageStats {
+    private static final Map<RegistryKey<World>, WorldStats> worldStats = new LinkedHashMap<>();
+    private static final long[] phaseNanos = new long[OperationPhase.getValues().length];
+    private static int storagesScanned = 0;
+    private static int storageSlots = 0;
+    private static int slotsExamined = 0;
+    private static int stacksMoved = 0;
+    private static int itemsMoved = 0;
+    // The quick stack range of the current operation, or -1 if it didn't search for nearby storages.
+    private static int range = -1;
+    private static StorageActionEvent event = null;
+    // Cleared while InventoryOracle runs the algorithms on copies, so the copies aren't counted as moved items.
+    private static boolean counting = true;
+
+    /**
+     * Starts timing an operation, clearing the counters of the previous one.
+     * @return The start time of the operation, to be passed to a record method.
+     */
+    public static long start() {
+        storagesScanned = 0;
+        storageSlots = 0;
+        slotsExamined = 0;
+        stacksMoved = 0;
+        itemsMoved = 0;
+        range = -1;
+        Arrays.fill(phaseNanos, 0);
+        event = new StorageActionEvent();
+        event.begin();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a storage action that was started with start.
+     * @param player The player who performed the action.
+     * @param action The storage action.
+     * @param startNanos The value returned by start.
+     */
+    public static void record(ServerPlayerEntity player, StorageAction action, long startNanos) {
+        record(player, action.name().toLowerCase(Locale.ENGLISH), startNanos);
+    }
+
+    /**
+     * Records an operation that was started with start.
+     * @param player The player who performed the operation.
+     * @param operation The name of the operation.
+     * @param startNanos The value returned by start.
+     */
+    public static void record(ServerPlayerEntity player, String operation, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        worldStats.computeIfAbsent(player.getWorld().getRegistryKey(), k -> new WorldStats())
+                .record(operation, nanos, storagesScanned, slotsExamined, stacksMoved, itemsMoved);
+
+        if (event != null && event.shouldCommit()) {
+            event.player = player.getGameProfile().getName();
+            event.action = operation;
+            event.storagesScanned = storagesScanned;
+            event.slotsScanned = slotsExamined;
+            event.stacksMoved = stacksMoved;
+            event.itemsMoved = itemsMoved;
+            event.commit();
+        }
+        event = null;
+
+        int slowActionThreshold = ConfigManager.getSnapshot().slowActionThreshold();
+        if (slowActionThreshold != 0 && nanos >= slowActionThreshold * 1_000_000L) {
+            logSlowOperation(player, operation, nanos);
+        }
+    }
+
+    /**
+     * Logs a single structured line describing an operation that exceeded the slow action threshold.
+     * @param player The player who performed the operation.
+     * @param operation The name of the operation.
+     * @param nanos The duration of the operation, in nanoseconds.
+     */
+    private static void logSlowOperation(ServerPlayerEntity player, String operation, long nanos) {
+        StringBuilder phases = new StringBuilder();
+        for (OperationPhase phase : OperationPhase.getValues()) {
+            long nanosInPhase = phaseNanos[phase.ordinal()];
+            if (nanosInPhase != 0) {
+                phases.append(' ').append(phase.name().toLowerCase(Locale.ENGLISH)).append("_ms=").append(formatMillis(nanosInPhase));
+            }
+        }
+
+        Terrastorage.LOGGER.warn("Slow storage action: player={} action={} world={} pos=[{}, {}, {}] range={} storages={} storage_slots={} slots_examined={} stacks_moved={} items_moved={} total_ms={}{}",
+                player.getGameProfile().getName(),
+                operation,
+                player.getWorld().getRegistryKey().getValue(),
+                player.getBlockX(), player.getBlockY(), player.getBlockZ(),
+                range == -1 ? "none" : range,
+                storagesScanned,
+                storageSlots,
+                slotsExamined,
+                stacksMoved,
+                itemsMoved,
+                formatMillis(nanos),
+                phases);
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Adds the time elapsed since the start of a phase to that phase of the current operation.
+     * @param phase The phase.
+     * @param phaseStartNanos The System.nanoTime value at the start of the phase.
+     */
+    public static void endPhase(OperationPhase phase, long phaseStartNanos) {
+        phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStartNanos;
+    }
+
+    /**
+     * Adds time to a phase of the current operation.
+     * @param phase The phase.
+     * @param nanos The time to add, in nanoseconds.
+     */
+    public static void addPhaseNanos(OperationPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public static long getPhaseNanos(OperationPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Notes the quick stack range used by the current operation to search for nearby storages.
+     * @param quickStackRange The range.
+     */
+    public static void noteRange(int quickStackRange) {
+        range = quickStackRange;
+    }
+
+    /**
+     * Counts a storage whose slots were examined by the current operation.
+     * @param storage The storage's inventory.
+     * @param playerSlots The amount of the player's slots examined along with the storage.
+     */
+    public static void countStorage(Inventory storage, int playerSlots) {
+        storagesScanned++;
+        storageSlots += storage.size();
+        slotsExamined += storage.size() + playerSlots;
+    }
+
+    /**
+     * Counts slots examined by the current operation outside of a storage.
+     * @param slots The amount of slots examined.
+     */
+    public static void countSlots(int slots) {
+        slotsExamined += slots;
+    }
+
+    /**
+     * Counts a stack that was moved, fully or partially, by the current operation.
+     * @param items The amount of items moved.
+     */
+    public static void countStackMoved(int items) {
+        if (!counting) {
+            return;
+        }
+
+        stacksMoved++;
+        itemsMoved += items;
+    }
+
+    /**
+     * Counts stacks that were moved as a whole by the current operation, as is the case with sorting.
+     * @param stacks The stacks.
+     */
+    public static void countStacksMoved(List<ItemStack> stacks) {
+        stacksMoved += stacks.size();
+        for (ItemStack stack : stacks) {
+            itemsMoved += stack.getCount();
+        }
+    }
+
+    /**
+     * Sets whether moved stacks are counted towards the current operation.
+     * @param counting Whether moved stacks are counted.
+     */
+    public static void setCounting(boolean counting) {
+        TerrastorageStats.counting = counting;
+    }
+
+    public static Map<RegistryKey<World>, WorldStats> getWorldStats() {
+        return worldStats;
+    }
+
+    public static void reset() {
+        worldStats.clear();
+    }
+}
@@ -0,0 +1,44 @@
+package me.timvinci.terrastorage.stats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the latency histograms and counters of the operations performed in a single world.
+ */
+public class WorldStats {
+    // The histograms keyed by operation name, in the order the operations were first performed.
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private long storagesScanned = 0;
+    private long slotsExamined = 0;
+    private long stacksMoved = 0;
+    private long itemsMoved = 0;
+
+    void record(String operation, long nanos, int storages, int slots, int stacks, int items) {
+        latencies.computeIfAbsent(operation, k -> new LatencyHistogram()).record(nanos);
+        storagesScanned += storages;
+        slotsExamined += slots;
+        stacksMoved += stacks;
+        itemsMoved += items;
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    public long getStoragesScanned() {
+        return storagesScanned;
+    }
+
+    public long getSlotsExamined() {
+        return slotsExamined;
+    }
+
+    public long getStacksMoved() {
+        return stacksMoved;
+    }
+
+    public long getItemsMoved() {
+        return itemsMoved;
+    }
+}
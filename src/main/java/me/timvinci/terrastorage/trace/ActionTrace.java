@@ -0,0 +1,172 @@
+package me.timvinci.terrastorage.trace;
+
+import me.timvinci.terrastorage.util.SortType;
+import me.timvinci.terrastorage.util.StorageAction;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.registry.RegistryOps;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The recorded inputs of a single storage operation: the operation, its flags, and snapshots of the player's inventory
+ * and of every storage it was performed on, taken before it was performed.
+ * @param action The name of the operation, a StorageAction name or one of the constants of this record.
+ * @param actions The actions of an action sequence, empty for other operations.
+ * @param sortType The sort type of the player, null if the operation doesn't sort.
+ * @param hotbarProtection The hotbar protection value of the player.
+ * @param smartDepositMode Whether the player's quick stack mode was 'smart deposit'.
+ * @param playerStacks The main stacks of the player's inventory.
+ * @param storages The stacks of each storage, in the order the operation processed them.
+ */
+public record ActionTrace(
+        String action,
+        List<StorageAction> actions,
+        @Nullable SortType sortType,
+        boolean hotbarProtection,
+        boolean smartDepositMode,
+        List<ItemStack> playerStacks,
+        List<List<ItemStack>> storages
+) {
+    public static final String SORT_PLAYER_INVENTORY = "SORT_PLAYER_INVENTORY";
+    public static final String ACTION_SEQUENCE = "ACTION_SEQUENCE";
+
+    /**
+     * Captures the inputs of an operation that is about to be performed.
+     * @param action The name of the operation.
+     * @param actions The actions of an action sequence, empty for other operations.
+     * @param sortType The sort type of the player, null if the operation doesn't sort.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     * @param playerInventory The player's inventory.
+     * @param storages The storages the operation is performed on.
+     * @return The trace, holding copies of every stack.
+     */
+    public static ActionTrace capture(String action, List<StorageAction> actions, @Nullable SortType sortType, boolean hotbarProtection, boolean smartDepositMode, PlayerInventory playerInventory, List<Inventory> storages) {
+        List<ItemStack> playerStacks = new ArrayList<>(playerInventory.getMainStacks().size());
+        for (ItemStack stack : playerInventory.getMainStacks()) {
+            playerStacks.add(stack.copy());
+        }
+
+        List<List<ItemStack>> storageStacks = new ArrayList<>(storages.size());
+        for (Inventory storage : storages) {
+            List<ItemStack> stacks = new ArrayList<>(storage.size());
+            for (int i = 0; i < storage.size(); i++) {
+                stacks.add(storage.getStack(i).copy());
+            }
+            storageStacks.add(stacks);
+        }
+
+        return new ActionTrace(action, actions, sortType, hotbarProtection, smartDepositMode, playerStacks, storageStacks);
+    }
+
+    /**
+     * Encodes the trace, only storing the non-empty stacks along with their slot.
+     * @param ops The registry ops used for encoding the stacks.
+     * @return The encoded trace.
+     */
+    public NbtCompound toNbt(RegistryOps<NbtElement> ops) {
+        NbtCompound nbt = new NbtCompound();
+        nbt.putString("action", action);
+        if (!actions.isEmpty()) {
+            NbtList actionList = new NbtList();
+            for (StorageAction sequenceAction : actions) {
+                actionList.add(NbtString.of(sequenceAction.name()));
+            }
+            nbt.put("actions", actionList);
+        }
+        if (sortType != null) {
+            nbt.putString("sort_type", sortType.name());
+        }
+        nbt.putBoolean("hotbar_protection", hotbarProtection);
+        nbt.putBoolean("smart_deposit_mode", smartDepositMode);
+        nbt.put("player", encodeStacks(playerStacks, ops));
+
+        NbtList storageList = new NbtList();
+        for (List<ItemStack> stacks : storages) {
+            storageList.add(encodeStacks(stacks, ops));
+        }
+        nbt.put("storages", storageList);
+        return nbt;
+    }
+
+    /**
+     * Decodes a trace encoded by toNbt.
+     * @param nbt The encoded trace.
+     * @param ops The registry ops used for decoding the stacks.
+     * @return The trace.
+     */
+    public static ActionTrace fromNbt(NbtCompound nbt, RegistryOps<NbtElement> ops) {
+        List<StorageAction> actions = new ArrayList<>();
+        NbtList actionList = nbt.getListOrEmpty("actions");
+        for (int i = 0; i < actionList.size(); i++) {
+            actions.add(StorageAction.valueOf(actionList.getString(i, "")));
+        }
+
+        String sortType = nbt.getString("sort_type", "");
+        List<List<ItemStack>> storages = new ArrayList<>();
+        NbtList storageList = nbt.getListOrEmpty("storages");
+        for (int i = 0; i < storageList.size(); i++) {
+            storages.add(decodeStacks(storageList.getCompoundOrEmpty(i), ops));
+        }
+
+        return new ActionTrace(
+                nbt.getString("action", ""),
+                actions,
+                sortType.isEmpty() ? null : SortType.valueOf(sortType),
+                nbt.getBoolean("hotbar_protection", false),
+                nbt.getBoolean("smart_deposit_mode", false),
+                decodeStacks(nbt.getCompoundOrEmpty("player"), ops),
+                storages
+        );
+    }
+
+    private static NbtCompound encodeStacks(List<ItemStack> stacks, RegistryOps<NbtElement> ops) {
+        NbtCompound inventory = new NbtCompound();
+        inventory.putInt("size", stacks.size());
+        NbtList items = new NbtList();
+        for (int slot = 0; slot < stacks.size(); slot++) {
+            ItemStack stack = stacks.get(slot);
+            if (stack.isEmpty()) {
+                continue;
+            }
+
+            NbtCompound item = new NbtCompound();
+            item.putInt("slot", slot);
+            item.put("stack", ItemStack.CODEC.encodeStart(ops, stack).getOrThrow());
+            items.add(item);
+        }
+        inventory.put("items", items);
+        return inventory;
+    }
+
+    private static List<ItemStack> decodeStacks(NbtCompound inventory, RegistryOps<NbtElement> ops) {
+        int size = inventory.getInt("size", 0);
+        List<ItemStack> stacks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            stacks.add(ItemStack.EMPTY);
+        }
+
+        NbtList items = inventory.getListOrEmpty("items");
+        for (int i = 0; i < items.size(); i++) {
+            NbtCompound item = items.getCompoundOrEmpty(i);
+            int slot = item.getInt("slot", -1);
+            NbtElement encodedStack = item.get("stack");
+            if (slot < 0 || slot >= size || encodedStack == null) {
+                continue;
+            }
+
+            // Stacks of items that no longer exist are replayed as empty slots.
+            stacks.set(slot, ItemStack.CODEC.parse(ops, encodedStack).result().orElse(ItemStack.EMPTY));
+        }
+
+        return stacks;
+    }
+}
@@ -0,0 +1,56 @@
+package me.timvinci.terrastorage.trace;
+
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.registry.RegistryOps;
+import net.minecraft.registry.RegistryWrapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the trace files written by ActionTraceRecorder.
+ */
+public class ActionTraceReader {
+
+    /**
+     * Reads every operation of a trace file.
+     * @param path The path of the trace file.
+     * @param registries The registries used for decoding the stacks.
+     * @return The recorded operations, in order.
+     * @throws IOException If the file couldn't be read, or isn't a trace file of a supported version.
+     */
+    public static List<ActionTrace> read(Path path, RegistryWrapper.WrapperLookup registries) throws IOException {
+        RegistryOps<NbtElement> ops = registries.getOps(NbtOps.INSTANCE);
+        List<ActionTrace> traces = new ArrayList<>();
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+            if (input.readInt() != ActionTraceRecorder.MAGIC) {
+                throw new IOException("'" + path + "' is not an action trace file.");
+            }
+            int version = input.readInt();
+            if (version != ActionTraceRecorder.FORMAT_VERSION) {
+                throw new IOException("Unsupported action trace version " + version + " in '" + path + "'.");
+            }
+
+            while (true) {
+                try {
+                    traces.add(ActionTrace.fromNbt(NbtIo.readCompound(input), ops));
+                } catch (EOFException e) {
+                    // A recording that wasn't stopped cleanly ends with a partial record, which is dropped.
+                    break;
+                }
+            }
+        }
+
+        return traces;
+    }
+}
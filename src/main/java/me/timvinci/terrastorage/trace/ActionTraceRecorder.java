@@ -0,0 +1,104 @@
+package me.timvinci.terrastorage.trace;
+
+import me.timvinci.terrastorage.Terrastorage;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An opt-in recorder of the inputs of storage operations, started and stopped through the trace command.
+ * A trace file is a gzip stream of a header followed by one NBT compound per operation, see ActionTrace.toNbt, which
+ * can be read back with ActionTraceReader and replayed outside a live server.
+ * Only accessed from the server thread.
+ */
+public class ActionTraceRecorder {
+    static final int MAGIC = 0x54535452; // "TSTR"
+    static final int FORMAT_VERSION = 1;
+    private static final Path TRACE_DIRECTORY = FabricLoader.getInstance().getGameDir().resolve("terrastorage-traces");
+    private static final DateTimeFormatter FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static DataOutputStream output = null;
+    private static Path tracePath = null;
+    private static int recordedCount = 0;
+
+    public static boolean isRecording() {
+        return output != null;
+    }
+
+    public static Path getTracePath() {
+        return tracePath;
+    }
+
+    public static int getRecordedCount() {
+        return recordedCount;
+    }
+
+    /**
+     * Starts recording to a new trace file.
+     * @return The path of the trace file.
+     * @throws IOException If the trace file couldn't be created.
+     */
+    public static Path start() throws IOException {
+        if (isRecording()) {
+            return tracePath;
+        }
+
+        Files.createDirectories(TRACE_DIRECTORY);
+        Path path = TRACE_DIRECTORY.resolve(LocalDateTime.now().format(FILE_NAME_FORMAT) + ".trace");
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(path))));
+        stream.writeInt(MAGIC);
+        stream.writeInt(FORMAT_VERSION);
+
+        output = stream;
+        tracePath = path;
+        recordedCount = 0;
+        return path;
+    }
+
+    /**
+     * Stops recording, closing the trace file.
+     * @return The amount of operations recorded to the trace file.
+     */
+    public static int stop() {
+        if (!isRecording()) {
+            return 0;
+        }
+
+        try {
+            output.close();
+        } catch (IOException e) {
+            Terrastorage.LOGGER.error("Failed to close the action trace file '{}'.", tracePath, e);
+        }
+
+        output = null;
+        return recordedCount;
+    }
+
+    /**
+     * Appends an operation to the trace file. Recording stops if the trace file can't be written to.
+     * @param player The player who performs the operation.
+     * @param trace The captured inputs of the operation.
+     */
+    public static void record(ServerPlayerEntity player, ActionTrace trace) {
+        if (!isRecording()) {
+            return;
+        }
+
+        try {
+            NbtIo.writeCompound(trace.toNbt(player.getRegistryManager().getOps(NbtOps.INSTANCE)), output);
+            recordedCount++;
+        } catch (IOException | RuntimeException e) {
+            Terrastorage.LOGGER.error("Failed to write to the action trace file '{}', stopping the recording.", tracePath, e);
+            stop();
+        }
+    }
+}
@@ -7,4 +7,7 @@ public class Reference {
     public static final String MOD_ID = "terrastorage";
     public static final String MOD_NAME = "Terrastorage";
     public static final String MOD_VERSION = "1.2.7";
+    // The version of the compact payload wire format, appended to the ids of the payloads that use it so that clients
+    // and servers running a different format don't register the same channels at join.
+    public static final int PROTOCOL_VERSION = 3;
 }
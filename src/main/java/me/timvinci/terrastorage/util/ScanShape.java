@@ -0,0 +1,47 @@
+package me.timvinci.terrastorage.util;
+
+/**
+ * An enum class defining the shapes of the volume scanned by Quick Stack To Nearby Storages.
+ */
+public enum ScanShape {
+    CUBE,
+    SPHERE,
+    CYLINDER;
+
+    /**
+     * Gets the vertical extent of the shape, the distance from its center to its top and bottom.
+     * @param range The quick stack range.
+     * @param verticalRange The quick stack vertical range, only used by the cylinder.
+     * @return The vertical extent, in blocks.
+     */
+    public int getVerticalExtent(int range, int verticalRange) {
+        return this == CYLINDER ? verticalRange : range;
+    }
+
+    /**
+     * Checks whether an offset from the center of the shape is within it.
+     * @param dx The offset on the x axis.
+     * @param dy The offset on the y axis.
+     * @param dz The offset on the z axis.
+     * @param range The quick stack range.
+     * @param verticalRange The quick stack vertical range, only used by the cylinder.
+     * @return True if the offset is within the shape, false otherwise.
+     */
+    public boolean contains(int dx, int dy, int dz, int range, int verticalRange) {
+        return switch (this) {
+            case CUBE -> Math.abs(dx) <= range && Math.abs(dy) <= range && Math.abs(dz) <= range;
+            case SPHERE -> dx * dx + dy * dy + dz * dz <= range * range;
+            case CYLINDER -> dx * dx + dz * dz <= range * range && Math.abs(dy) <= verticalRange;
+        };
+    }
+
+    /**
+     * Gets the next enum constant after the one provided.
+     * @param current The current constant
+     * @return The next constant.
+     */
+    public static ScanShape next(ScanShape current) {
+        int index = (current.ordinal() + 1) % values().length;
+        return values()[index];
+    }
+}
@@ -12,11 +12,19 @@ public enum StorageAction {
     RESTOCK,
     SORT_ITEMS,
     RENAME,
-    QUICK_STACK_TO_NEARBY;
+    QUICK_STACK_TO_NEARBY,
+    RESTOCK_FROM_NEARBY;
 
     public static StorageAction[] getButtonsActions(boolean isEnderChest) {
-        StorageAction[] allActions = values();
-        return Arrays.copyOf(allActions, allActions.length - (isEnderChest ? 2 : 1));
+        // The buttons actions are the ones preceding the nearby actions, without rename for ender chests.
+        return Arrays.copyOf(values(), isEnderChest ? RENAME.ordinal() : QUICK_STACK_TO_NEARBY.ordinal());
     }
-}
 
+    /**
+     * Checks whether the action targets the storages nearby the player, rather than the open storage.
+     * @return True if the action targets nearby storages, false otherwise.
+     */
+    public boolean targetsNearbyStorages() {
+        return this == QUICK_STACK_TO_NEARBY || this == RESTOCK_FROM_NEARBY;
+    }
+}
@@ -1,14 +1,23 @@
 package me.timvinci.terrastorage.util;
 
+import me.timvinci.terrastorage.Terrastorage;
 import me.timvinci.terrastorage.api.ItemFavoritingUtils;
+import me.timvinci.terrastorage.catalog.StorageCatalog;
 import me.timvinci.terrastorage.config.ConfigManager;
 import me.timvinci.terrastorage.inventory.*;
-import me.timvinci.terrastorage.item.StackIdentifier;
 import me.timvinci.terrastorage.item.StackProcessor;
 import me.timvinci.terrastorage.mixin.DoubleInventoryAccessor;
 import me.timvinci.terrastorage.mixin.EntityAccessor;
 import me.timvinci.terrastorage.mixin.LockableContainerBlockEntityAccessor;
 import me.timvinci.terrastorage.network.NetworkHandler;
+import me.timvinci.terrastorage.stats.OperationPhase;
+import me.timvinci.terrastorage.stats.RenameEvent;
+import me.timvinci.terrastorage.stats.SortEvent;
+import me.timvinci.terrastorage.stats.TerrastorageStats;
+import me.timvinci.terrastorage.trace.ActionTrace;
+import me.timvinci.terrastorage.trace.ActionTraceRecorder;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
 import net.minecraft.block.entity.LockableContainerBlockEntity;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.player.PlayerInventory;
@@ -39,23 +48,50 @@ public class TerrastorageCore {
      */
     public static void lootAll(PlayerInventory playerInventory, Inventory storageInventory, boolean hotbarProtection) {
         // Create an inventory state from the player's inventory.
+        long phaseStart = System.nanoTime();
         CompleteInventoryState playerInventoryState = new CompleteInventoryState(playerInventory, hotbarProtection);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
 
-        for (int i = 0; i < storageInventory.size(); i++) {
-            ItemStack storageStack = storageInventory.getStack(i);
-            if (storageStack.isEmpty()) {
-                continue;
-            }
-
-            InventoryUtils.transferStack(playerInventory, playerInventoryState, storageStack);
-        }
+        lootAll(playerInventory, storageInventory, playerInventoryState);
 
         if (playerInventoryState.wasModified()) {
             playerInventory.markDirty();
-            storageInventory.markDirty();
+            DirtyStorageQueue.markDirty(storageInventory);
         }
     }
 
+    /**
+     * Loots all the items from the storage to the player, using an existing state of the player's inventory.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param playerInventoryState A complete inventory state of the player's inventory.
+     */
+    private static void lootAll(PlayerInventory playerInventory, Inventory storageInventory, InventoryState playerInventoryState) {
+        TerrastorageStats.countStorage(storageInventory, playerInventory.getMainStacks().size());
+        long phaseStart = System.nanoTime();
+        planLootAll(playerInventory, storageInventory, playerInventoryState).apply();
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
+    }
+
+    /**
+     * Plans a loot all operation without modifying either inventory. Planning with a freshly built state, which is
+     * then discarded along with the plan, serves as a dry run of the operation.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param playerInventoryState A complete inventory state of the player's inventory, which the plan keeps up to date.
+     * @return The plan.
+     */
+    public static TransferPlan planLootAll(PlayerInventory playerInventory, Inventory storageInventory, InventoryState playerInventoryState) {
+        TransferPlan plan = new TransferPlan(storageInventory, playerInventory, playerInventoryState);
+        for (int i = 0; i < storageInventory.size(); i++) {
+            if (!storageInventory.getStack(i).isEmpty()) {
+                plan.planStack(i);
+            }
+        }
+
+        return plan;
+    }
+
     /**
      * Attempts to deposit all the items from the player to the storage.
      * @param playerInventory The player's inventory.
@@ -64,16 +100,58 @@ public class TerrastorageCore {
      * @param hotbarProtection The hotbar protection value of the player.
      */
     public static void depositAll(PlayerInventory playerInventory, Inventory storageInventory, Slot firstSlot, boolean hotbarProtection) {
+        if (InventoryOracle.shouldSample()) {
+            checkDepositAll(playerInventory, storageInventory, firstSlot, hotbarProtection);
+        }
+
         // Create an inventory state from the storage's inventory.
+        long phaseStart = System.nanoTime();
         CompleteInventoryState storageInventoryState = new CompleteInventoryState(storageInventory);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+
+        depositAll(playerInventory, storageInventory, firstSlot, hotbarProtection, storageInventoryState);
+
+        if (storageInventoryState.wasModified()) {
+            playerInventory.markDirty();
+            DirtyStorageQueue.markDirty(storageInventory);
+        }
+    }
 
+    /**
+     * Deposits all the items from the player to the storage, using an existing state of the storage's inventory.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param firstSlot The first slot of the screen handler of the storage inventory.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param storageInventoryState An inventory state of the storage's inventory that tracks its empty slots.
+     */
+    private static void depositAll(PlayerInventory playerInventory, Inventory storageInventory, Slot firstSlot, boolean hotbarProtection, InventoryState storageInventoryState) {
+        TerrastorageStats.countStorage(storageInventory, playerInventory.getMainStacks().size());
+        long phaseStart = System.nanoTime();
+        planDepositAll(playerInventory, storageInventory, firstSlot, hotbarProtection, storageInventoryState).apply();
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
+    }
+
+    /**
+     * Plans a deposit all operation without modifying either inventory. Planning with a freshly built state, which is
+     * then discarded along with the plan, serves as a dry run of the operation.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param firstSlot The first slot of the screen handler of the storage inventory.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param storageInventoryState An inventory state of the storage's inventory that tracks its empty slots, which the
+     *                              plan keeps up to date.
+     * @return The plan.
+     */
+    public static TransferPlan planDepositAll(PlayerInventory playerInventory, Inventory storageInventory, Slot firstSlot, boolean hotbarProtection, InventoryState storageInventoryState) {
+        TransferPlan plan = new TransferPlan(playerInventory, storageInventory, storageInventoryState);
         for (int i = PlayerInventory.getHotbarSize(); i < playerInventory.getMainStacks().size(); i++) {
             ItemStack playerStack = playerInventory.getStack(i);
             if (playerStack.isEmpty() || ItemFavoritingUtils.isFavorite(playerStack) || !firstSlot.canInsert(playerStack)) {
                 continue;
             }
 
-            InventoryUtils.transferStack(storageInventory, storageInventoryState, playerStack);
+            plan.planStack(i);
         }
 
         if (!hotbarProtection) {
@@ -84,13 +162,38 @@ public class TerrastorageCore {
                     continue;
                 }
 
-                InventoryUtils.transferStack(storageInventory, storageInventoryState, playerStack);
+                plan.planStack(i);
             }
         }
 
-        if (storageInventoryState.wasModified()) {
-            playerInventory.markDirty();
-            storageInventory.markDirty();
+        return plan;
+    }
+
+    /**
+     * Compares a deposit all operation against the reference transfer algorithm, logging any difference.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param firstSlot The first slot of the screen handler of the storage inventory.
+     * @param hotbarProtection The hotbar protection value of the player.
+     */
+    private static void checkDepositAll(PlayerInventory playerInventory, Inventory storageInventory, Slot firstSlot, boolean hotbarProtection) {
+        List<ItemStack> playerStacks = new ArrayList<>();
+        int mainSize = playerInventory.getMainStacks().size();
+        for (int i = 0; i < mainSize; i++) {
+            // Same order as depositAll, the main inventory before the hotbar.
+            int slot = (i + PlayerInventory.getHotbarSize()) % mainSize;
+            ItemStack playerStack = playerInventory.getStack(slot);
+            if ((hotbarProtection && PlayerInventory.isValidHotbarIndex(slot)) || playerStack.isEmpty() ||
+                    ItemFavoritingUtils.isFavorite(playerStack) || !firstSlot.canInsert(playerStack)) {
+                continue;
+            }
+
+            playerStacks.add(playerStack);
+        }
+
+        String difference = InventoryOracle.compareTransfer(storageInventory, playerStacks);
+        if (difference != null) {
+            Terrastorage.LOGGER.error("Deposit all diverged from the reference algorithm: {}", difference);
         }
     }
 
@@ -102,21 +205,39 @@ public class TerrastorageCore {
      * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
      */
     public static void quickStack(PlayerInventory playerInventory, Inventory storageInventory, boolean hotbarProtection, boolean smartDepositMode) {
+        long phaseStart = System.nanoTime();
         InventoryState storageInventoryState = smartDepositMode ?
                 new ExpandedInventoryState(storageInventory) :
                 new CompactInventoryState(storageInventory);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+
+        quickStack(playerInventory, storageInventory, hotbarProtection, smartDepositMode, storageInventoryState);
 
+        if (storageInventoryState.wasModified()) {
+            playerInventory.markDirty();
+            DirtyStorageQueue.markDirty(storageInventory);
+        }
+    }
+
+    /**
+     * Performs a quick stack operation on a storage inventory, using an existing state of the storage's inventory.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     * @param storageInventoryState An inventory state of the storage's inventory, which must be an
+     *                              ExpandedInventoryState when smart deposit mode is used.
+     */
+    private static void quickStack(PlayerInventory playerInventory, Inventory storageInventory, boolean hotbarProtection, boolean smartDepositMode, InventoryState storageInventoryState) {
+        TerrastorageStats.countStorage(storageInventory, playerInventory.getMainStacks().size());
+        long phaseStart = System.nanoTime();
         StackProcessor processor = InventoryUtils.createStackProcessor(storageInventoryState, storageInventory, smartDepositMode);
 
         int startIndex = hotbarProtection ? PlayerInventory.getHotbarSize() : 0;
         for (int i = startIndex; i < playerInventory.getMainStacks().size(); i++) {
             processor.tryProcess(playerInventory.getStack(i));
         }
-
-        if (storageInventoryState.wasModified()) {
-            playerInventory.markDirty();
-            storageInventory.markDirty();
-        }
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
     }
 
     /**
@@ -128,21 +249,51 @@ public class TerrastorageCore {
      */
     public static void restock(PlayerInventory playerInventory, Inventory storageInventory, boolean hotbarProtection) {
         // Create an inventory state from the player's inventory.
+        long phaseStart = System.nanoTime();
         CompactInventoryState playerInventoryState = new CompactInventoryState(playerInventory, hotbarProtection);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
 
-        for (int i = 0; i < storageInventory.size(); i++) {
-            ItemStack storageStack = storageInventory.getStack(i);
-            if (storageStack.isEmpty() || !playerInventoryState.getNonFullItemSlots().containsKey(new StackIdentifier(storageStack))) {
-                continue;
-            }
-
-            InventoryUtils.transferToExistingStack(playerInventory, playerInventoryState, storageStack);
-        }
+        restock(playerInventory, storageInventory, playerInventoryState);
 
         if (playerInventoryState.wasModified()) {
             playerInventory.markDirty();
-            storageInventory.markDirty();
+            DirtyStorageQueue.markDirty(storageInventory);
+        }
+    }
+
+    /**
+     * Restocks the player's non-full stacks from the storage, using an existing state of the player's inventory.
+     * Stops once the player has no non-full stacks left.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param playerInventoryState An inventory state of the player's inventory.
+     * @return True if items were taken from the storage, false otherwise.
+     */
+    private static boolean restock(PlayerInventory playerInventory, Inventory storageInventory, InventoryState playerInventoryState) {
+        TerrastorageStats.countStorage(storageInventory, playerInventory.getMainStacks().size());
+        long phaseStart = System.nanoTime();
+        boolean storageModified = planRestock(playerInventory, storageInventory, playerInventoryState).apply();
+        TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
+        return storageModified;
+    }
+
+    /**
+     * Plans a restock operation without modifying either inventory. Planning with a freshly built state, which is then
+     * discarded along with the plan, serves as a dry run of the operation.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param playerInventoryState An inventory state of the player's inventory, which the plan keeps up to date.
+     * @return The plan.
+     */
+    public static TransferPlan planRestock(PlayerInventory playerInventory, Inventory storageInventory, InventoryState playerInventoryState) {
+        TransferPlan plan = new TransferPlan(storageInventory, playerInventory, playerInventoryState);
+        for (int i = 0; i < storageInventory.size() && !playerInventoryState.getNonFullItemSlots().isEmpty(); i++) {
+            if (!storageInventory.getStack(i).isEmpty()) {
+                plan.planToExistingStacks(i);
+            }
         }
+
+        return plan;
     }
 
     /**
@@ -151,24 +302,161 @@ public class TerrastorageCore {
      * @param type The sorting type of the player.
      */
     public static void sortStorageItems(Inventory storageInventory, SortType type) {
+        if (InventoryOracle.shouldSample()) {
+            checkSort(storageInventory, type, 0, storageInventory.size(), false);
+        }
+
+        placeSortedStacks(storageInventory, type);
+        DirtyStorageQueue.markDirty(storageInventory);
+    }
+
+    /**
+     * Compares a sort operation against the reference sort algorithm, logging any difference.
+     * @param inventory The inventory to sort.
+     * @param type The sorting type of the player.
+     * @param startIndex The index at which item iteration starts.
+     * @param endIndex The index at which item iteration ends.
+     * @param ignoreFavorites Whether favorite stacks are left in place.
+     */
+    private static void checkSort(Inventory inventory, SortType type, int startIndex, int endIndex, boolean ignoreFavorites) {
+        String difference = InventoryOracle.compareSort(inventory, type, startIndex, endIndex, ignoreFavorites);
+        if (difference != null) {
+            Terrastorage.LOGGER.error("Sorting diverged from the reference algorithm: {}", difference);
+        }
+    }
+
+    /**
+     * Combines and sorts the items of a storage, and places them back in the storage starting from its first slot.
+     * @param storageInventory The storage's inventory.
+     * @param type The sorting type of the player.
+     */
+    private static void placeSortedStacks(Inventory storageInventory, SortType type) {
+        SortEvent event = new SortEvent();
+        event.begin();
+        long phaseStart = System.nanoTime();
         List<ItemStack> sortedStacks = InventoryUtils.combineAndSortInventory(storageInventory, type, 0, storageInventory.size(), false);
+        TerrastorageStats.countStorage(storageInventory, 0);
+        TerrastorageStats.countStacksMoved(sortedStacks);
 
         int slotIndex = 0;
         for (ItemStack stack : sortedStacks) {
             storageInventory.setStack(slotIndex++, stack);
         }
+        TerrastorageStats.endPhase(OperationPhase.SORT, phaseStart);
+
+        if (event.shouldCommit()) {
+            event.target = "storage";
+            event.sortType = type.name();
+            event.slotsScanned = storageInventory.size();
+            event.stacksPlaced = sortedStacks.size();
+            event.commit();
+        }
+    }
 
-        storageInventory.markDirty();
+    /**
+     * Performs an ordered sequence of storage actions on a storage inventory, as a single operation.
+     * The state of an inventory is shared between consecutive actions for as long as that inventory only receives
+     * items, and both inventories are marked dirty once, after the last action.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param firstSlot The first slot of the screen handler of the storage inventory.
+     * @param actions The actions to perform, in order.
+     * @param sortType The sorting type of the player.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     */
+    public static void performActionSequence(PlayerInventory playerInventory, Inventory storageInventory, Slot firstSlot, List<StorageAction> actions, SortType sortType, boolean hotbarProtection, boolean smartDepositMode) {
+        performActionSequence(playerInventory, storageInventory, storageInventory, firstSlot, actions, sortType, hotbarProtection, smartDepositMode);
+    }
+
+    /**
+     * Performs an ordered sequence of storage actions on a storage inventory, as a single operation, with Loot All,
+     * Quick Stack and Restock targeting the storage group of the storage.
+     * @param playerInventory The player's inventory.
+     * @param storageInventory The storage's inventory.
+     * @param groupInventory The inventory of the storage group, see StorageCatalog.getGroupInventory.
+     * @param firstSlot The first slot of the screen handler of the storage inventory.
+     * @param actions The actions to perform, in order.
+     * @param sortType The sorting type of the player.
+     * @param hotbarProtection The hotbar protection value of the player.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     */
+    public static void performActionSequence(PlayerInventory playerInventory, Inventory storageInventory, Inventory groupInventory, Slot firstSlot, List<StorageAction> actions, SortType sortType, boolean hotbarProtection, boolean smartDepositMode) {
+        InventoryState playerInventoryState = null;
+        InventoryState storageInventoryState = null;
+        // The inventory the storage state was built from, as Deposit All and Quick Stack may target different ones.
+        Inventory stateInventory = null;
+        boolean modified = false;
+
+        for (StorageAction action : actions) {
+            switch (action) {
+                case LOOT_ALL, RESTOCK -> {
+                    // The storage gives items away, so its state no longer reflects its slots.
+                    storageInventoryState = null;
+                    if (playerInventoryState == null) {
+                        // A complete state also tracks the non-full slots, so it can be used by both actions.
+                        long phaseStart = System.nanoTime();
+                        playerInventoryState = new CompleteInventoryState(playerInventory, hotbarProtection);
+                        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+                    }
+
+                    if (action == StorageAction.LOOT_ALL) {
+                        lootAll(playerInventory, groupInventory, playerInventoryState);
+                    }
+                    else {
+                        restock(playerInventory, groupInventory, playerInventoryState);
+                    }
+                    modified |= playerInventoryState.wasModified();
+                }
+                case DEPOSIT_ALL, QUICK_STACK -> {
+                    // The player gives items away, so their state no longer reflects their slots.
+                    playerInventoryState = null;
+                    // The group holds the storage, so a state built from one is stale once the other receives items.
+                    Inventory targetInventory = action == StorageAction.QUICK_STACK ? groupInventory : storageInventory;
+                    if (storageInventoryState == null || stateInventory != targetInventory) {
+                        // An expanded state also tracks the empty slots, so it can be used by both actions.
+                        long phaseStart = System.nanoTime();
+                        storageInventoryState = new ExpandedInventoryState(targetInventory);
+                        stateInventory = targetInventory;
+                        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+                    }
+
+                    if (action == StorageAction.DEPOSIT_ALL) {
+                        depositAll(playerInventory, storageInventory, firstSlot, hotbarProtection, storageInventoryState);
+                    }
+                    else {
+                        quickStack(playerInventory, groupInventory, hotbarProtection, smartDepositMode, storageInventoryState);
+                    }
+                    modified |= storageInventoryState.wasModified();
+                }
+                case SORT_ITEMS -> {
+                    // Sorting moves every stack of the storage.
+                    storageInventoryState = null;
+                    placeSortedStacks(storageInventory, sortType);
+                    modified = true;
+                }
+                default -> throw new IllegalArgumentException("Unsupported storage action in sequence: " + action);
+            }
+        }
+
+        if (modified) {
+            playerInventory.markDirty();
+            // The group holds the storage, so both are covered.
+            DirtyStorageQueue.markDirty(groupInventory);
+        }
     }
 
     /**
      * Handles the renaming of an entity or block entity that the player is interacting with.
      * Updates the name of the entity or block entity and sends the new name to all players tracking it.
-     * Also reopens the screen for the player who initiated the rename action.
+     * Also updates the title of the screen of the player who initiated the rename action, or reopens it if the player's
+     * client can't update the title in place.
      * @param player The player initiating the rename action.
      * @param newName The new name to apply to the entity or block entity. If empty, the name will be reset to default.
      */
     public static void renameStorage(ServerPlayerEntity player, String newName) {
+        RenameEvent event = new RenameEvent();
+        event.begin();
         Text newCustomName = newName.isEmpty() ? null : Text.literal(newName);
         NamedScreenHandlerFactory factory;
         Inventory containerInventory = player.currentScreenHandler.slots.getFirst().inventory;
@@ -196,6 +484,10 @@ public class TerrastorageCore {
 
                 firstPart.markDirty();
                 secondPart.markDirty();
+                if (StorageCatalog.getGroupName(newCustomName) != null) {
+                    StorageCatalog.setGroupOwner(player.getWorld(), firstPart.getPos(), player.getUuid());
+                    StorageCatalog.setGroupOwner(player.getWorld(), secondPart.getPos(), player.getUuid());
+                }
 
                 NetworkHandler.sendGlobalBlockRenamedPayload(player.getWorld(), firstPart.getPos(), newCustomName == null ? "" : newCustomName.getString());
                 NetworkHandler.sendGlobalBlockRenamedPayload(player.getWorld(), secondPart.getPos(), newCustomName == null ? "" : newCustomName.getString());
@@ -215,6 +507,9 @@ public class TerrastorageCore {
 
             accessor.setCustomName(newCustomName);
             lockableContainerBlockEntity.markDirty();
+            if (StorageCatalog.getGroupName(newCustomName) != null) {
+                StorageCatalog.setGroupOwner(player.getWorld(), lockableContainerBlockEntity.getPos(), player.getUuid());
+            }
 
             NetworkHandler.sendGlobalBlockRenamedPayload(player.getWorld(), lockableContainerBlockEntity.getPos(), newCustomName == null ? "" : newCustomName.getString());
             factory = lockableContainerBlockEntity.getCachedState().createScreenHandlerFactory(player.getWorld(), lockableContainerBlockEntity.getPos());
@@ -224,8 +519,19 @@ public class TerrastorageCore {
             return;
         }
 
-        player.closeHandledScreen();
-        player.openHandledScreen(factory);
+        boolean screenReopened = !NetworkHandler.sendScreenTitlePayload(player, player.currentScreenHandler.syncId, factory.getDisplayName());
+        if (screenReopened) {
+            player.closeHandledScreen();
+            player.openHandledScreen(factory);
+        }
+
+        if (event.shouldCommit()) {
+            event.player = player.getGameProfile().getName();
+            event.storage = containerInventory.getClass().getSimpleName();
+            event.nameReset = newCustomName == null;
+            event.screenReopened = screenReopened;
+            event.commit();
+        }
     }
 
     /**
@@ -235,9 +541,19 @@ public class TerrastorageCore {
      * @param hotbarProtection The hotbar protection value of the player.
      */
     public static void sortPlayerItems(PlayerInventory playerInventory, SortType type, boolean hotbarProtection) {
+        if (InventoryOracle.shouldSample()) {
+            checkSort(playerInventory, type, hotbarProtection ? PlayerInventory.getHotbarSize() : 0,
+                    playerInventory.getMainStacks().size(), true);
+        }
+
+        SortEvent event = new SortEvent();
+        event.begin();
+        long phaseStart = System.nanoTime();
         List<ItemStack> sortedList = InventoryUtils.combineAndSortInventory(playerInventory, type,
                 hotbarProtection ? PlayerInventory.getHotbarSize() : 0,
                 playerInventory.getMainStacks().size(), true);
+        TerrastorageStats.countSlots(playerInventory.getMainStacks().size());
+        TerrastorageStats.countStacksMoved(sortedList);
         ArrayDeque<ItemStack> sortedStacks = new ArrayDeque<>(sortedList);
 
         int slotIndex = PlayerInventory.getHotbarSize();
@@ -257,8 +573,17 @@ public class TerrastorageCore {
             }
             while (!sortedStacks.isEmpty());
         }
+        TerrastorageStats.endPhase(OperationPhase.SORT, phaseStart);
 
         playerInventory.markDirty();
+
+        if (event.shouldCommit()) {
+            event.target = "player_inventory";
+            event.sortType = type.name();
+            event.slotsScanned = playerInventory.getMainStacks().size();
+            event.stacksPlaced = sortedList.size();
+            event.commit();
+        }
     }
 
     /**
@@ -268,23 +593,133 @@ public class TerrastorageCore {
      * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
      */
     public static void quickStackToNearbyStorages(ServerPlayerEntity player, boolean hotbarProtection, boolean smartDepositMode) {
-        List<Pair<Inventory, Vec3d>> nearbyStorages = InventoryUtils.getNearbyStorages(player);
-        if (nearbyStorages.isEmpty()) {
+        List<Pair<Storage<ItemVariant>, Vec3d>> transferStorages = ConfigManager.getSnapshot().transferApiStorages() ? new ArrayList<>() : null;
+        List<Pair<Inventory, Vec3d>> nearbyStorages = InventoryUtils.getNearbyStorages(player, transferStorages);
+        if (nearbyStorages.isEmpty() && (transferStorages == null || transferStorages.isEmpty())) {
+            return;
+        }
+
+        if (ActionTraceRecorder.isRecording()) {
+            ActionTraceRecorder.record(player, ActionTrace.capture(StorageAction.QUICK_STACK_TO_NEARBY.name(), List.of(), null,
+                    hotbarProtection, smartDepositMode, player.getInventory(),
+                    nearbyStorages.stream().map(Pair::getLeft).toList()));
+        }
+
+        Map<Vec3d, ArrayList<Item>> animationMap = quickStackToStorages(player.getInventory(), nearbyStorages, hotbarProtection, smartDepositMode);
+        if (transferStorages != null) {
+            boolean playerInventoryModified = false;
+            for (Pair<Storage<ItemVariant>, Vec3d> transferStorage : transferStorages) {
+                playerInventoryModified |= TransferStorageUtils.quickStack(player.getInventory(), transferStorage.getLeft(),
+                        hotbarProtection, smartDepositMode,
+                        item -> animationMap.computeIfAbsent(transferStorage.getRight(), k -> new ArrayList<>()).add(item));
+            }
+
+            if (playerInventoryModified) {
+                player.getInventory().markDirty();
+            }
+        }
+
+        int itemAnimationLength = ConfigManager.getSnapshot().itemAnimationLength();
+        if (itemAnimationLength != 0) {
+            long phaseStart = System.nanoTime();
+            InventoryUtils.triggerFlyOutAnimation(player.getWorld(), player.getEyePos(), itemAnimationLength, animationMap);
+            TerrastorageStats.endPhase(OperationPhase.ANIMATION, phaseStart);
+        }
+    }
+
+    /**
+     * Restocks the player's non-full stacks from all the storages nearby the player.
+     * Storages whose loot is yet to be generated are left out, as restocking from them would generate it.
+     * @param player The player who initiated the operation.
+     * @param hotbarProtection The player's hotbar protection value.
+     */
+    public static void restockFromNearbyStorages(ServerPlayerEntity player, boolean hotbarProtection) {
+        // Build the state of the player's inventory first, so a player with nothing to restock skips the scan.
+        long phaseStart = System.nanoTime();
+        CompactInventoryState playerInventoryState = new CompactInventoryState(player.getInventory(), hotbarProtection);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+        if (playerInventoryState.getNonFullItemSlots().isEmpty()) {
+            return;
+        }
+
+        List<Pair<Storage<ItemVariant>, Vec3d>> transferStorages = ConfigManager.getSnapshot().transferApiStorages() ? new ArrayList<>() : null;
+        List<Inventory> nearbyStorages = new ArrayList<>();
+        for (Pair<Inventory, Vec3d> nearbyStorage : InventoryUtils.getNearbyStorages(player, transferStorages)) {
+            if (!InventoryUtils.hasPendingLoot(nearbyStorage.getLeft())) {
+                nearbyStorages.add(nearbyStorage.getLeft());
+            }
+        }
+        if (nearbyStorages.isEmpty() && (transferStorages == null || transferStorages.isEmpty())) {
             return;
         }
 
+        if (ActionTraceRecorder.isRecording()) {
+            ActionTraceRecorder.record(player, ActionTrace.capture(StorageAction.RESTOCK_FROM_NEARBY.name(), List.of(), null,
+                    hotbarProtection, false, player.getInventory(), nearbyStorages));
+        }
+
+        restockFromStorages(player.getInventory(), nearbyStorages, playerInventoryState);
+        if (transferStorages != null && !playerInventoryState.getNonFullItemSlots().isEmpty()) {
+            // The item storages come last, as restocking from them doesn't keep the player's state up to date, so
+            // each restock reports whether the player still has non-full stacks instead.
+            for (Pair<Storage<ItemVariant>, Vec3d> transferStorage : transferStorages) {
+                if (!TransferStorageUtils.restock(player.getInventory(), transferStorage.getLeft(), hotbarProtection)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Restocks the player's non-full stacks from each of the given storages, in order, sharing a single state of the
+     * player's inventory between them. Stops once the player has no non-full stacks left.
+     * @param playerInventory The player's inventory.
+     * @param storages The storages.
+     * @param playerInventoryState A compact inventory state of the player's inventory.
+     */
+    public static void restockFromStorages(PlayerInventory playerInventory, List<Inventory> storages, CompactInventoryState playerInventoryState) {
+        for (Inventory storage : storages) {
+            if (playerInventoryState.getNonFullItemSlots().isEmpty()) {
+                break;
+            }
+
+            if (restock(playerInventory, storage, playerInventoryState)) {
+                DirtyStorageQueue.markDirty(storage);
+            }
+        }
+
+        if (playerInventoryState.wasModified()) {
+            playerInventory.markDirty();
+        }
+    }
+
+    /**
+     * Performs a quick stack operation on each of the given storages, in order.
+     * @param playerInventory The player's inventory.
+     * @param storages The storages, paired with the position their animated items fly to.
+     * @param hotbarProtection The player's hotbar protection value.
+     * @param smartDepositMode Whether the player's quick stack mode is 'smart deposit'.
+     * @return An animation map of the items moved into each storage position.
+     */
+    public static Map<Vec3d, ArrayList<Item>> quickStackToStorages(PlayerInventory playerInventory, List<Pair<Inventory, Vec3d>> storages, boolean hotbarProtection, boolean smartDepositMode) {
         Function<Inventory, InventoryState> stateFactory = InventoryUtils.getInventoryStateFactory(smartDepositMode);
         Map<Vec3d, ArrayList<Item>> animationMap = new HashMap<>();
 
-        PlayerInventory playerInventory = player.getInventory();
         int startIndex = hotbarProtection ? PlayerInventory.getHotbarSize() : 0;
         boolean playerInventoryModified = false;
 
-        for (Pair<Inventory, Vec3d> storagePair : nearbyStorages) {
-            Inventory storage = storagePair.getLeft();
-            Vec3d storagePos = storagePair.getRight();
+        long phaseStart = System.nanoTime();
+        List<InventoryState> storageStates = InventoryStateBuilder.buildStates(
+                storages.stream().map(Pair::getLeft).toList(), stateFactory);
+        TerrastorageStats.endPhase(OperationPhase.STATE_BUILD, phaseStart);
+
+        for (int s = 0; s < storages.size(); s++) {
+            Inventory storage = storages.get(s).getLeft();
+            Vec3d storagePos = storages.get(s).getRight();
+            InventoryState storageState = storageStates.get(s);
+            TerrastorageStats.countStorage(storage, playerInventory.getMainStacks().size() - startIndex);
 
-            InventoryState storageState = stateFactory.apply(storage);
+            phaseStart = System.nanoTime();
             StackProcessor processor = InventoryUtils.createStackProcessor(storageState, storage, smartDepositMode);
 
             for (int i = startIndex; i < playerInventory.getMainStacks().size(); i++) {
@@ -294,9 +729,10 @@ public class TerrastorageCore {
                     animationMap.computeIfAbsent(storagePos, k -> new ArrayList<>()).add(playerItem);
                 }
             }
+            TerrastorageStats.endPhase(OperationPhase.TRANSFER, phaseStart);
 
             if (storageState.wasModified()) {
-                storage.markDirty();
+                DirtyStorageQueue.markDirty(storage);
                 playerInventoryModified = true;
             }
         }
@@ -305,10 +741,6 @@ public class TerrastorageCore {
             playerInventory.markDirty();
         }
 
-
-        int itemAnimationLength = ConfigManager.getInstance().getConfig().getItemAnimationLength();
-        if (itemAnimationLength != 0) {
-            InventoryUtils.triggerFlyOutAnimation(player.getWorld(), player.getEyePos(), itemAnimationLength, animationMap);
-        }
+        return animationMap;
     }
 }